@@ -0,0 +1,19 @@
+package com.canscan.ocrsaas.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers the annotated bean only on nodes that run OCR jobs ({@code app.role} {@code worker} or {@code both}).
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ConditionalOnExpression("T(com.canscan.ocrsaas.config.NodeRole).from('${app.role:both}').runsWorker()")
+public @interface ConditionalOnWorkerRole {
+}
@@ -0,0 +1,25 @@
+package com.canscan.ocrsaas.config;
+
+import java.util.Locale;
+
+/**
+ * What a node does, set with {@code app.role}: {@code api} serves the REST API and queues OCR jobs,
+ * {@code worker} only runs queued jobs, and {@code both} (default) does everything in one process.
+ * Nodes only share the database and the storage backend, so OCR capacity scales by adding workers.
+ */
+public enum NodeRole {
+
+    API, WORKER, BOTH;
+
+    public static NodeRole from(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public boolean runsApi() {
+        return this != WORKER;
+    }
+
+    public boolean runsWorker() {
+        return this != API;
+    }
+}
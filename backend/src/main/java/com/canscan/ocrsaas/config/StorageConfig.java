@@ -0,0 +1,67 @@
+package com.canscan.ocrsaas.config;
+
+import com.canscan.ocrsaas.service.storage.LocalStorageBackend;
+import com.canscan.ocrsaas.service.storage.S3StorageBackend;
+import com.canscan.ocrsaas.service.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Selects where stored files live with {@code app.storage.backend}: {@code local} (default) keeps them under
+ * {@code app.file.upload-dir}, {@code s3} puts them in an S3-compatible bucket so API and worker nodes can share them.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "local", matchIfMissing = true)
+    public StorageBackend localStorageBackend(@Value("${app.file.upload-dir}") String uploadDir) throws IOException {
+        return new LocalStorageBackend(Paths.get(uploadDir));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+    public S3Client s3Client(@Value("${app.storage.s3.region:us-east-1}") String region,
+                             @Value("${app.storage.s3.endpoint:}") String endpoint,
+                             @Value("${app.storage.s3.path-style:false}") boolean pathStyle,
+                             @Value("${app.storage.s3.access-key:}") String accessKey,
+                             @Value("${app.storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+
+        // An explicit endpoint points the client at MinIO or another S3-compatible store
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (StringUtils.hasText(accessKey)) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+    public StorageBackend s3StorageBackend(S3Client s3Client,
+                                           @Value("${app.storage.s3.bucket}") String bucket,
+                                           @Value("${app.storage.s3.prefix:}") String prefix,
+                                           @Value("${app.storage.s3.part-size:8MB}") DataSize partSize) {
+        return new S3StorageBackend(s3Client, bucket, prefix, (int) partSize.toBytes());
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -27,22 +28,22 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtTokenUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("Could not extract username from token", e);
-            }
-        }
+            // Signature and expiration are checked once, here
+            Optional<TokenClaims> claims = jwtTokenUtil.validate(jwt);
+
+            if (claims.isPresent()) {
+                TokenClaims token = claims.get();
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // Tokens carry the user id and role, so no database lookup is needed;
+                // tokens issued before these claims existed still go through the user store
+                UserDetails userDetails = token.userId() != null && token.role() != null
+                        ? new AuthenticatedUser(token.userId(), token.username(), token.role())
+                        : this.userDetailsService.loadUserByUsername(token.username());
 
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
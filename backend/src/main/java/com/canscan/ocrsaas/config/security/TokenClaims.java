@@ -0,0 +1,18 @@
+package com.canscan.ocrsaas.config.security;
+
+import java.time.Instant;
+
+/**
+ * Verified contents of a JWT, produced once per token by {@link JwtTokenUtil#validate(String)}.
+ *
+ * @param username  token subject
+ * @param userId    user id, or {@code null} for tokens issued before the claim existed
+ * @param role      user role, or {@code null} for tokens issued before the claim existed
+ * @param expiresAt token expiration
+ */
+public record TokenClaims(String username, Long userId, String role, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,61 @@
+package com.canscan.ocrsaas.controller;
+
+import com.canscan.ocrsaas.config.ConditionalOnApiRole;
+import com.canscan.ocrsaas.dto.OcrNodeDto;
+import com.canscan.ocrsaas.dto.OcrQueueTenantDto;
+import com.canscan.ocrsaas.dto.StorageMigrationStatusDto;
+import com.canscan.ocrsaas.service.OcrNodeService;
+import com.canscan.ocrsaas.service.OcrQueueMetrics;
+import com.canscan.ocrsaas.service.StorageLayoutMigrator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnApiRole
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Administration", description = "Operational endpoints for administrators")
+public class AdminController {
+
+    private final StorageLayoutMigrator storageLayoutMigrator;
+    private final OcrQueueMetrics ocrQueueMetrics;
+    private final OcrNodeService ocrNodeService;
+
+    @GetMapping("/storage/migration")
+    @Operation(summary = "Storage migration status", description = "Progress of the move to the sharded storage layout")
+    public ResponseEntity<StorageMigrationStatusDto> getStorageMigrationStatus() {
+        return ResponseEntity.ok(storageLayoutMigrator.getStatus());
+    }
+
+    @PostMapping("/storage/migration/start")
+    @Operation(summary = "Start storage migration", description = "Move files from the flat to the sharded storage layout in the background; resumes where a previous run stopped")
+    public ResponseEntity<StorageMigrationStatusDto> startStorageMigration() {
+        return ResponseEntity.accepted().body(storageLayoutMigrator.start());
+    }
+
+    @PostMapping("/storage/migration/stop")
+    @Operation(summary = "Stop storage migration", description = "Stop the storage migration after the current batch")
+    public ResponseEntity<StorageMigrationStatusDto> stopStorageMigration() {
+        return ResponseEntity.ok(storageLayoutMigrator.stop());
+    }
+
+    @GetMapping("/ocr/queue")
+    @Operation(summary = "OCR queue by tenant", description = "Queued OCR jobs and oldest wait per user and priority class, deepest first")
+    public ResponseEntity<List<OcrQueueTenantDto>> getOcrQueue() {
+        return ResponseEntity.ok(ocrQueueMetrics.getQueueByTenant());
+    }
+
+    @GetMapping("/ocr/nodes")
+    @Operation(summary = "OCR worker nodes", description = "Registered OCR worker nodes with their capacity, running jobs and last heartbeat")
+    public ResponseEntity<List<OcrNodeDto>> getOcrNodes() {
+        return ResponseEntity.ok(ocrNodeService.getNodes());
+    }
+
+}
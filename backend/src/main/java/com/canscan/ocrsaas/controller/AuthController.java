@@ -1,5 +1,6 @@
 package com.canscan.ocrsaas.controller;
 
+import com.canscan.ocrsaas.config.ConditionalOnApiRole;
 import com.canscan.ocrsaas.dto.AuthRequestDto;
 import com.canscan.ocrsaas.dto.AuthResponseDto;
 import com.canscan.ocrsaas.dto.RegisterRequestDto;
@@ -14,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@ConditionalOnApiRole
 @RequestMapping("/auth")
 @RequiredArgsConstructor
 @Tag(name = "Authentication", description = "Authentication API")
@@ -1,74 +1,111 @@
 package com.canscan.ocrsaas.controller;
 
+import com.canscan.ocrsaas.config.ConditionalOnApiRole;
+import com.canscan.ocrsaas.controller.support.ExportArchiveResponder;
+import com.canscan.ocrsaas.controller.support.FileDownloadResponder;
+import com.canscan.ocrsaas.dto.CursorPageDto;
 import com.canscan.ocrsaas.dto.DocumentDto;
+import com.canscan.ocrsaas.dto.DocumentExportRequestDto;
+import com.canscan.ocrsaas.dto.DocumentSearchHitDto;
+import com.canscan.ocrsaas.dto.DocumentSummaryDto;
+import com.canscan.ocrsaas.dto.DocumentTextDto;
 import com.canscan.ocrsaas.dto.DocumentUpdateDto;
-import com.canscan.ocrsaas.exception.FileStorageException;
-import com.canscan.ocrsaas.exception.ResourceNotFoundException;
-import com.canscan.ocrsaas.model.Document;
-import com.canscan.ocrsaas.model.User;
-import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.dto.UploadBatchDto;
+import com.canscan.ocrsaas.service.BatchUploadService;
 import com.canscan.ocrsaas.service.DocumentService;
-import com.canscan.ocrsaas.service.FileStorageService;
-import com.canscan.ocrsaas.service.UserService;
+import com.canscan.ocrsaas.service.FileDownload;
+import com.canscan.ocrsaas.service.export.ExportArchive;
+import com.canscan.ocrsaas.service.export.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.file.Path;
+import java.util.List;
 
 @RestController
+@ConditionalOnApiRole
 @RequestMapping("/documents")
 @RequiredArgsConstructor
 @Tag(name = "Documents", description = "Document management and OCR API")
 public class DocumentController {
 
     private final DocumentService documentService;
-    private final UserService userService;
-    private final DocumentRepository documentRepository;
-    private final FileStorageService fileStorageService;
-
+    private final BatchUploadService batchUploadService;
+    private final FileDownloadResponder fileDownloadResponder;
+    private final ExportArchiveResponder exportArchiveResponder;
 
     @GetMapping
-    @Operation(summary = "Get all documents", description = "Get all documents for the current user")
-    public ResponseEntity<Page<DocumentDto>> getAllDocuments(Pageable pageable) {
+    @Operation(summary = "Get all documents", description = "Get a summary of all documents for the current user, without the extracted text")
+    public ResponseEntity<Page<DocumentSummaryDto>> getAllDocuments(Pageable pageable) {
         return ResponseEntity.ok(documentService.getAllDocuments(pageable));
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Scroll documents", description = "Cursor-paginated document summaries, newest first (sort=createdAt) or by name (sort=name)")
+    public ResponseEntity<CursorPageDto<DocumentSummaryDto>> scrollDocuments(
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(documentService.scrollDocuments(sort, cursor, size));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search documents", description = "Full-text search over document names and extracted text, ranked by relevance")
+    public ResponseEntity<CursorPageDto<DocumentSearchHitDto>> searchDocuments(
+            @RequestParam("q") String query,
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(documentService.searchDocuments(query, folderId, cursor, size));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get document", description = "Get a specific document by ID")
     public ResponseEntity<DocumentDto> getDocument(@PathVariable Long id) {
         return ResponseEntity.ok(documentService.getDocument(id));
     }
 
+    @GetMapping("/{id}/text")
+    @Operation(summary = "Get document text", description = "Get the full extracted text of a document")
+    public ResponseEntity<DocumentTextDto> getDocumentText(@PathVariable Long id) {
+        return ResponseEntity.ok(documentService.getDocumentText(id));
+    }
+
     @GetMapping("/{id}/download")
-    @Operation(summary = "Download document", description = "Download a document as .docx")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable Long id) {
-        try {
-            Resource resource = documentService.downloadDocument(id);
-            String filename = documentService.getDocumentFilename(id);
+    @Operation(summary = "Download document",
+            description = "Download a document as docx (default), txt, md or a searchable pdf; supports Range and If-None-Match")
+    public void downloadDocument(@PathVariable Long id, @RequestParam(defaultValue = "docx") String format,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileDownload download = documentService.getExportDownload(id, ExportFormat.fromParam(format));
+        fileDownloadResponder.respond(download, request, response);
+    }
 
-            String contentType = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    @GetMapping("/{id}/original")
+    @Operation(summary = "Download original", description = "Download the originally uploaded file; supports Range and If-None-Match")
+    public void downloadOriginal(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileDownloadResponder.respond(documentService.getOriginalDownload(id), request, response);
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
-        } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (IOException e) {
-            throw new FileStorageException("Could not download file", e);
-        }
+    @PostMapping("/export")
+    @Operation(summary = "Export documents", description = "Stream a ZIP of the selected documents as docx (default), txt, md or pdf; " +
+            "unprocessed documents are skipped unless includePending adds their original; pdf only includes " +
+            "documents whose searchable PDF was already generated")
+    public ResponseEntity<StreamingResponseBody> exportDocuments(@Valid @RequestBody DocumentExportRequestDto exportRequest) {
+        ExportArchive archive = documentService.prepareDocumentsArchive(exportRequest.getIds(),
+                ExportFormat.fromParam(exportRequest.getFormat()), exportRequest.isIncludePending());
+        return exportArchiveResponder.respond(archive);
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -79,6 +116,47 @@ public class DocumentController {
         return ResponseEntity.ok(documentService.uploadAndProcessDocument(file, folderId));
     }
 
+    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Upload document (streaming)",
+            description = "Upload the raw file bytes as the request body; they are written straight to storage without a temporary copy")
+    public ResponseEntity<DocumentDto> uploadDocumentStream(
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(documentService.uploadAndProcessDocument(
+                request.getInputStream(), request.getContentLengthLong(), filename, folderId));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload batch",
+            description = "Upload many files at once; ZIP files are expanded. Returns the batch with the status of every file")
+    public ResponseEntity<UploadBatchDto> uploadBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "folderId", required = false) Long folderId) throws IOException {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchUploadService.uploadFiles(files, folderId));
+    }
+
+    @PostMapping(value = "/batch", consumes = {"application/zip", "application/x-zip-compressed"})
+    @Operation(summary = "Upload batch (ZIP body)",
+            description = "Upload a ZIP as the raw request body; its files are stored as they are read, without a temporary copy")
+    public ResponseEntity<UploadBatchDto> uploadBatchZip(
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchUploadService.uploadZip(request.getInputStream(), folderId));
+    }
+
+    @GetMapping("/batch/{id}")
+    @Operation(summary = "Get batch", description = "Get an upload batch with the current status of its documents")
+    public ResponseEntity<UploadBatchDto> getBatch(@PathVariable Long id) {
+        return ResponseEntity.ok(batchUploadService.getBatch(id));
+    }
+
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancel OCR", description = "Cancel OCR of a pending or processing document")
+    public ResponseEntity<DocumentDto> cancelDocument(@PathVariable Long id) {
+        return ResponseEntity.ok(documentService.cancelDocument(id));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update document", description = "Update an existing document")
     public ResponseEntity<DocumentDto> updateDocument(
@@ -1,24 +1,36 @@
 package com.canscan.ocrsaas.controller;
 
+import com.canscan.ocrsaas.config.ConditionalOnApiRole;
+import com.canscan.ocrsaas.controller.support.ExportArchiveResponder;
+import com.canscan.ocrsaas.dto.CursorPageDto;
+import com.canscan.ocrsaas.dto.DocumentSummaryDto;
 import com.canscan.ocrsaas.dto.FolderDto;
 import com.canscan.ocrsaas.dto.FolderRequestDto;
+import com.canscan.ocrsaas.dto.FolderTreeDto;
+import com.canscan.ocrsaas.service.DocumentService;
 import com.canscan.ocrsaas.service.FolderService;
+import com.canscan.ocrsaas.service.export.ExportArchive;
+import com.canscan.ocrsaas.service.export.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@ConditionalOnApiRole
 @RequestMapping("/folders")
 @RequiredArgsConstructor
 @Tag(name = "Folders", description = "Folder management API")
 public class FolderController {
 
     private final FolderService folderService;
+    private final DocumentService documentService;
+    private final ExportArchiveResponder exportArchiveResponder;
 
     @GetMapping("/root")
     @Operation(summary = "Get root folders", description = "Get all root folders for the current user")
@@ -26,12 +38,49 @@ public class FolderController {
         return ResponseEntity.ok(folderService.getRootFolders());
     }
 
+    @GetMapping("/tree")
+    @Operation(summary = "Get folder tree", description = "Get the whole folder tree of the current user with document counts")
+    public ResponseEntity<List<FolderTreeDto>> getFolderTree() {
+        return ResponseEntity.ok(folderService.getFolderTree());
+    }
+
     @GetMapping("/{parentId}/subfolders")
     @Operation(summary = "Get subfolders", description = "Get all subfolders for a specific folder")
     public ResponseEntity<List<FolderDto>> getSubfolders(@PathVariable Long parentId) {
         return ResponseEntity.ok(folderService.getSubfolders(parentId));
     }
 
+    @GetMapping("/{parentId}/subfolders/scroll")
+    @Operation(summary = "Scroll subfolders", description = "Cursor-paginated subfolders of a folder, by name")
+    public ResponseEntity<CursorPageDto<FolderDto>> scrollSubfolders(
+            @PathVariable Long parentId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(folderService.scrollSubfolders(parentId, cursor, size));
+    }
+
+    @GetMapping("/{folderId}/documents")
+    @Operation(summary = "Scroll folder documents", description = "Cursor-paginated document summaries of a folder, newest first (sort=createdAt) or by name (sort=name)")
+    public ResponseEntity<CursorPageDto<DocumentSummaryDto>> scrollFolderDocuments(
+            @PathVariable Long folderId,
+            @RequestParam(value = "sort", defaultValue = "createdAt") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(documentService.scrollFolderDocuments(folderId, sort, cursor, size));
+    }
+
+    @GetMapping("/{id}/export")
+    @Operation(summary = "Export folder", description = "Stream a ZIP of every document in a folder and its subfolders " +
+            "as docx (default), txt, md or pdf; unprocessed documents are skipped unless includePending adds their original; " +
+            "pdf only includes documents whose searchable PDF was already generated")
+    public ResponseEntity<StreamingResponseBody> exportFolder(
+            @PathVariable Long id,
+            @RequestParam(value = "format", defaultValue = "docx") String format,
+            @RequestParam(value = "includePending", defaultValue = "false") boolean includePending) {
+        ExportArchive archive = documentService.prepareFolderArchive(id, ExportFormat.fromParam(format), includePending);
+        return exportArchiveResponder.respond(archive);
+    }
+
     @PostMapping
     @Operation(summary = "Create folder", description = "Create a new folder")
     public ResponseEntity<FolderDto> createFolder(@Valid @RequestBody FolderRequestDto folderRequest) {
@@ -47,10 +96,10 @@ public class FolderController {
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete folder", description = "Delete a folder and all its contents")
+    @Operation(summary = "Delete folder", description = "Delete a folder and all its contents; stored files are removed in the background")
     public ResponseEntity<Void> deleteFolder(@PathVariable Long id) {
         folderService.deleteFolder(id);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.accepted().build();
     }
 
 }
@@ -0,0 +1,37 @@
+package com.canscan.ocrsaas.controller.support;
+
+import com.canscan.ocrsaas.service.export.ExportArchive;
+import com.canscan.ocrsaas.service.export.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams an export archive as a chunked ZIP response. The body is written on an MVC async
+ * thread once the request thread returns; the archive's documents are resolved before that.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExportArchiveResponder {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private final ExportService exportService;
+
+    public ResponseEntity<StreamingResponseBody> respond(ExportArchive archive) {
+        StreamingResponseBody body = out -> exportService.writeArchive(archive, out);
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(archive.filename(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
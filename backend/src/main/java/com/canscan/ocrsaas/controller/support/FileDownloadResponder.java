@@ -0,0 +1,177 @@
+package com.canscan.ocrsaas.controller.support;
+
+import com.canscan.ocrsaas.service.FileDownload;
+import com.canscan.ocrsaas.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes a stored file to the response with conditional GET (strong ETag, 304) and single byte-range support.
+ * <p>
+ * Local files are handed to Tomcat's sendfile when the connector supports it, so the bytes go from the page cache
+ * to the socket without passing through the JVM; otherwise they are copied with {@link FileChannel#transferTo}.
+ * Downloads that come with an open channel, such as cached exports, are always copied from that channel.
+ * Files in remote storage are streamed from the backend, fetching only the requested range.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileDownloadResponder {
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final FileStorageService fileStorageService;
+
+    /**
+     * Serves the download and closes its open channel, if it has one, whatever the outcome.
+     */
+    public void respond(FileDownload download, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = download.channel()) {
+            respond(download, channel, request, response);
+        }
+    }
+
+    private void respond(FileDownload download, FileChannel channel, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        String etag = download.sha256() != null ? "\"" + download.sha256() + "\"" : null;
+        long size = download.size();
+
+        // Clients may keep the file but must revalidate, which costs a 304 when nothing changed
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        long start = 0;
+        long end = size - 1;
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            if (size == 0 || range.getRangeStart(size) >= size) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        long length = end - start + 1;
+        response.setContentType(download.contentType());
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(download.filename(), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        if (length == 0) {
+            return;
+        }
+
+        if (channel != null) {
+            // Already open, typically because the file may be evicted; sendfile would reopen it by name
+            transfer(channel, start, length, response);
+            return;
+        }
+
+        Path localPath = download.localPath();
+        if (localPath == null) {
+            // Remote storage: stream just the requested bytes from the backend
+            try (InputStream in = fileStorageService.openRead(download.storedPath(), start, length)) {
+                in.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // Tomcat writes the body itself once the request returns
+            request.setAttribute(SENDFILE_FILENAME_ATTR, localPath.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(localPath, StandardOpenOption.READ)) {
+            transfer(file, start, length, response);
+        }
+    }
+
+    private static void transfer(FileChannel file, long start, long length, HttpServletResponse response) throws IOException {
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = file.transferTo(position, remaining, out);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    /**
+     * The single range to serve, or {@code null} for the whole file. Malformed and multi-range
+     * requests get the whole file, and so does a stale {@code If-Range}.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(rangeHeader)) {
+            return null;
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && (etag == null || !ifRange.trim().equals(etag))) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One file of an upload batch: the document it became, or why it was rejected.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemDto {
+
+    public static final String STATUS_REJECTED = "REJECTED";
+
+    private String name;
+    private Long documentId;
+    private String status;
+    private String error;
+}
@@ -18,6 +18,8 @@ public class DocumentDto {
     private String status;
     private Long folderId;
     private String extractedText;
+    private String contentType;
+    private Long sizeBytes;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,22 @@
+package com.canscan.ocrsaas.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentExportRequestDto {
+
+    @NotEmpty(message = "At least one document id is required")
+    private List<Long> ids;
+
+    private String format = "docx";
+
+    private boolean includePending;
+
+}
@@ -0,0 +1,25 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentSearchHitDto {
+
+    private Long id;
+    private String name;
+    private String status;
+    private Long folderId;
+    private Float rank;
+    // HTML: the escaped text around the matches, each match wrapped in <mark>
+    private String snippet;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.canscan.ocrsaas.dto;
+
+import com.canscan.ocrsaas.model.Document;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight document listing entry. Selected directly by a JPQL constructor
+ * expression, so listings never load the full extracted text.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentSummaryDto {
+
+    private Long id;
+    private String name;
+    private String status;
+    private Long folderId;
+    private Integer textLength;
+    private String snippet;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public DocumentSummaryDto(Long id, String name, Document.Status status, Long folderId, Integer textLength,
+                              String snippet, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, status.name(), folderId, textLength, snippet, createdAt, updatedAt);
+    }
+}
@@ -0,0 +1,16 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DocumentTextDto {
+
+    private Long id;
+    private String extractedText;
+}
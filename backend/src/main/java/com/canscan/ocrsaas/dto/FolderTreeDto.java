@@ -0,0 +1,30 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FolderTreeDto {
+
+    private Long id;
+    private String name;
+    private Long parentId;
+
+    // Documents directly in this folder
+    private long documentCount;
+
+    // Documents in this folder and all of its subfolders
+    private long subtreeDocumentCount;
+
+    @Builder.Default
+    private List<FolderTreeDto> children = new ArrayList<>();
+
+}
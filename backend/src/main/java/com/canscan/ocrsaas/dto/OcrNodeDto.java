@@ -0,0 +1,25 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A registered OCR worker node as of its last heartbeat.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OcrNodeDto {
+
+    private String id;
+    private String status;
+    private int threads;
+    private int runningJobs;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+}
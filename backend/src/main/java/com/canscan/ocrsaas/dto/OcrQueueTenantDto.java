@@ -0,0 +1,22 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Queued OCR work of one tenant in one priority class.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OcrQueueTenantDto {
+
+    private Long userId;
+    private String priority;
+    private long depth;
+    // Age of the tenant's oldest queued job
+    private long oldestWaitSeconds;
+}
@@ -0,0 +1,25 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StorageMigrationStatusDto {
+
+    private boolean running;
+    private long scannedDocuments;
+    private long movedFiles;
+    private long missingFiles;
+    private long failedFiles;
+    private Long lastDocumentId;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+}
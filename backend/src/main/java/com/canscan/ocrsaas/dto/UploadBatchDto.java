@@ -0,0 +1,26 @@
+package com.canscan.ocrsaas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadBatchDto {
+
+    private Long id;
+    private Long folderId;
+    private int totalFiles;
+    private int rejectedFiles;
+    // Documents of the batch per status (PENDING, PROCESSING, COMPLETED, FAILED)
+    private Map<String, Long> statusCounts;
+    private List<BatchItemDto> items;
+    private LocalDateTime createdAt;
+}
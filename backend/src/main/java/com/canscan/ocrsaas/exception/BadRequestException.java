@@ -0,0 +1,16 @@
+package com.canscan.ocrsaas.exception;
+
+/**
+ * A request the client has to change before retrying: a malformed parameter, or an operation
+ * the resource's current state does not allow. Its message is returned to the client.
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package com.canscan.ocrsaas.exception;
+
+public class FileTooLargeException extends RuntimeException {
+
+    public FileTooLargeException(long maxBytes) {
+        super("File exceeds the maximum allowed size of " + maxBytes + " bytes");
+    }
+}
@@ -1,5 +1,7 @@
 package com.canscan.ocrsaas.exception;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -9,12 +11,14 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@Slf4j
 public class GlobalExceptionHandler {
 
   @ExceptionHandler(ResourceNotFoundException.class)
@@ -41,6 +45,68 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
   }
 
+  @ExceptionHandler({FileTooLargeException.class, MaxUploadSizeExceededException.class})
+  @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+  public ResponseEntity<ErrorResponse> handleFileTooLargeException(Exception ex, WebRequest request) {
+    ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.PAYLOAD_TOO_LARGE.value(),
+            ex.getMessage(),
+            request.getDescription(false),
+            LocalDateTime.now()
+    );
+    return new ResponseEntity<>(errorResponse, HttpStatus.PAYLOAD_TOO_LARGE);
+  }
+
+  @ExceptionHandler(UnsupportedFileTypeException.class)
+  @ResponseStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+  public ResponseEntity<ErrorResponse> handleUnsupportedFileTypeException(UnsupportedFileTypeException ex, WebRequest request) {
+    ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(),
+            ex.getMessage(),
+            request.getDescription(false),
+            LocalDateTime.now()
+    );
+    return new ResponseEntity<>(errorResponse, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+  }
+
+  @ExceptionHandler(OcrOverloadedException.class)
+  @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+  public ResponseEntity<ErrorResponse> handleOcrOverloadedException(OcrOverloadedException ex, WebRequest request) {
+    ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            ex.getMessage(),
+            request.getDescription(false),
+            LocalDateTime.now()
+    );
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(errorResponse);
+  }
+
+  @ExceptionHandler(OcrTimeoutException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public ResponseEntity<ErrorResponse> handleOcrTimeoutException(OcrTimeoutException ex, WebRequest request) {
+    ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            ex.getMessage(),
+            request.getDescription(false),
+            LocalDateTime.now()
+    );
+    return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler(BadRequestException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<ErrorResponse> handleBadRequestException(BadRequestException ex, WebRequest request) {
+    ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            ex.getMessage(),
+            request.getDescription(false),
+            LocalDateTime.now()
+    );
+    return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(BadCredentialsException.class)
   @ResponseStatus(HttpStatus.UNAUTHORIZED)
   public ResponseEntity<ErrorResponse> handleBadCredentialsException(BadCredentialsException ex, WebRequest request) {
@@ -75,9 +141,11 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(Exception.class)
   @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
   public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex, WebRequest request) {
+    // Unexpected errors, including IllegalArgumentException from library code: logged, never echoed to the client
+    log.error("Unhandled exception for {}", request.getDescription(false), ex);
     ErrorResponse errorResponse = new ErrorResponse(
             HttpStatus.INTERNAL_SERVER_ERROR.value(),
-            ex.getMessage(),
+            "Internal server error",
             request.getDescription(false),
             LocalDateTime.now()
     );
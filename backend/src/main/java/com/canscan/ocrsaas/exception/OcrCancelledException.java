@@ -0,0 +1,8 @@
+package com.canscan.ocrsaas.exception;
+
+public class OcrCancelledException extends OcrProcessingException {
+
+    public OcrCancelledException(String message) {
+        super(message);
+    }
+}
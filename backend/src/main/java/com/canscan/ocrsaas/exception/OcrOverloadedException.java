@@ -0,0 +1,15 @@
+package com.canscan.ocrsaas.exception;
+
+public class OcrOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OcrOverloadedException(long retryAfterSeconds) {
+        super("OCR queue is full, retry in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
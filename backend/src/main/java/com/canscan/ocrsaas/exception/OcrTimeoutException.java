@@ -0,0 +1,8 @@
+package com.canscan.ocrsaas.exception;
+
+public class OcrTimeoutException extends OcrProcessingException {
+
+    public OcrTimeoutException(String message) {
+        super(message);
+    }
+}
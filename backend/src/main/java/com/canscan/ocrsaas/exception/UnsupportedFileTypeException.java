@@ -0,0 +1,8 @@
+package com.canscan.ocrsaas.exception;
+
+public class UnsupportedFileTypeException extends RuntimeException {
+
+    public UnsupportedFileTypeException(String fileName) {
+        super("Unsupported file type: " + fileName + ". Upload a PDF or an image (PNG, JPEG, TIFF, GIF, BMP)");
+    }
+}
@@ -18,8 +18,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Document {
 
+    // Pooled sequence: ids are reserved 50 at a time, so inserts of a batch upload can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_id_seq")
+    @SequenceGenerator(name = "documents_id_seq", sequenceName = "documents_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -28,12 +30,25 @@ public class Document {
     @Column(name = "original_file_path", nullable = false)
     private String originalFilePath;
 
-    @Column(name = "doc_file_path")
-    private String docFilePath;
-
     @Column(name = "extracted_text", columnDefinition = "TEXT")
     private String extractedText;
 
+    // SHA-256 of extractedText; keys the exports rendered from it
+    @Column(name = "text_hash", length = 64)
+    private String textHash;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "ocr_settings", length = 64)
+    private String ocrSettings;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Status status;
@@ -46,6 +61,10 @@ public class Document {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batch_id")
+    private UploadBatch batch;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -55,6 +74,6 @@ public class Document {
     private LocalDateTime updatedAt;
 
     public enum Status {
-        PENDING, PROCESSING, COMPLETED, FAILED
+        PENDING, PROCESSING, COMPLETED, FAILED, CANCELLED
     }
 }
@@ -0,0 +1,38 @@
+package com.canscan.ocrsaas.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored file waiting to be removed from disk after its rows were deleted in bulk.
+ */
+@Entity
+@Table(name = "file_cleanup")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileCleanup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false, insertable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+}
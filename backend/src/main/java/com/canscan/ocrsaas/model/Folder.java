@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -27,6 +28,11 @@ public class Folder {
     @Column(nullable = false)
     private String name;
 
+    // Materialized path of ids such as /1/5/9/, set by the database on insert and rewritten on moves
+    @Generated
+    @Column(insertable = false, updatable = false, columnDefinition = "TEXT")
+    private String path;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     private Folder parent;
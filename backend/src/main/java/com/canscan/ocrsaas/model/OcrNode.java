@@ -0,0 +1,44 @@
+package com.canscan.ocrsaas.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A worker node, kept alive by its heartbeats. Rows are written with upserts by the node itself.
+ */
+@Entity
+@Table(name = "ocr_nodes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcrNode {
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private int threads;
+
+    @Column(name = "running_jobs", nullable = false)
+    private int runningJobs;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    public enum Status {
+        ACTIVE, DRAINING
+    }
+}
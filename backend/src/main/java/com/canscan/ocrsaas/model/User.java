@@ -1,5 +1,6 @@
 package com.canscan.ocrsaas.model;
 
+import com.canscan.ocrsaas.service.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,6 +15,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
 @Data
 @Builder
 @NoArgsConstructor
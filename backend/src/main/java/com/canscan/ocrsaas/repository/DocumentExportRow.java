@@ -0,0 +1,10 @@
+package com.canscan.ocrsaas.repository;
+
+/**
+ * A document to add to an export archive, with the folder it is filed in.
+ */
+public interface DocumentExportRow extends DocumentFileView {
+
+    // Materialized path of the document's folder, or null when it is not in one
+    String getFolderPath();
+}
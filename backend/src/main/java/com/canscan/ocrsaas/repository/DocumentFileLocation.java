@@ -0,0 +1,11 @@
+package com.canscan.ocrsaas.repository;
+
+/**
+ * Row returned by {@link DocumentRepository#findFlatLayoutBatch}.
+ */
+public interface DocumentFileLocation {
+
+    Long getId();
+
+    String getOriginalFilePath();
+}
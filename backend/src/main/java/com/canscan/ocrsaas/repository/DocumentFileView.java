@@ -0,0 +1,25 @@
+package com.canscan.ocrsaas.repository;
+
+import com.canscan.ocrsaas.model.Document;
+
+/**
+ * The columns needed to serve a document's files, without the extracted text.
+ */
+public interface DocumentFileView {
+
+    Long getId();
+
+    String getName();
+
+    Document.Status getStatus();
+
+    String getOriginalFilePath();
+
+    String getContentHash();
+
+    String getContentType();
+
+    Long getSizeBytes();
+
+    String getTextHash();
+}
@@ -1,19 +1,192 @@
 package com.canscan.ocrsaas.repository;
 
+import com.canscan.ocrsaas.dto.DocumentSummaryDto;
 import com.canscan.ocrsaas.model.Document;
 import com.canscan.ocrsaas.model.Folder;
+import com.canscan.ocrsaas.model.UploadBatch;
 import com.canscan.ocrsaas.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long> {
+
+    int SNIPPET_LENGTH = 160;
+
+    String EXPORT_ROW_SELECT = "select d.id as id, d.name as name, d.status as status, " +
+            "d.originalFilePath as originalFilePath, d.contentHash as contentHash, d.contentType as contentType, " +
+            "d.sizeBytes as sizeBytes, d.textHash as textHash, f.path as folderPath " +
+            "from Document d left join d.folder f ";
+
+    String SUMMARY_SELECT = "select new com.canscan.ocrsaas.dto.DocumentSummaryDto(d.id, d.name, d.status, f.id, " +
+            "length(d.extractedText), substring(d.extractedText, 1, " + SNIPPET_LENGTH + "), d.createdAt, d.updatedAt) " +
+            "from Document d left join d.folder f ";
+
     Page<Document> findByUser(User user, Pageable pageable);
+
+    // Keyset pagination: one query per sort order for the first page and one for the following pages,
+    // so each can walk its composite index directly
+
+    @Query(SUMMARY_SELECT + "where d.user = :user order by d.createdAt desc, d.id desc")
+    List<DocumentSummaryDto> findSummariesByUserNewestFirst(@Param("user") User user, Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.user = :user and (d.createdAt, d.id) < (:createdAt, :id) " +
+            "order by d.createdAt desc, d.id desc")
+    List<DocumentSummaryDto> findSummariesByUserNewestFirstAfter(@Param("user") User user,
+                                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                                 @Param("id") Long id, Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.user = :user order by d.name, d.id")
+    List<DocumentSummaryDto> findSummariesByUserByName(@Param("user") User user, Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.user = :user and (d.name, d.id) > (:name, :id) order by d.name, d.id")
+    List<DocumentSummaryDto> findSummariesByUserByNameAfter(@Param("user") User user, @Param("name") String name,
+                                                            @Param("id") Long id, Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.folder = :folder and d.user = :user order by d.createdAt desc, d.id desc")
+    List<DocumentSummaryDto> findSummariesByFolderNewestFirst(@Param("user") User user, @Param("folder") Folder folder,
+                                                              Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.folder = :folder and d.user = :user and (d.createdAt, d.id) < (:createdAt, :id) " +
+            "order by d.createdAt desc, d.id desc")
+    List<DocumentSummaryDto> findSummariesByFolderNewestFirstAfter(@Param("user") User user, @Param("folder") Folder folder,
+                                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                                   @Param("id") Long id, Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.folder = :folder and d.user = :user order by d.name, d.id")
+    List<DocumentSummaryDto> findSummariesByFolderByName(@Param("user") User user, @Param("folder") Folder folder,
+                                                         Limit limit);
+
+    @Query(SUMMARY_SELECT + "where d.folder = :folder and d.user = :user and (d.name, d.id) > (:name, :id) " +
+            "order by d.name, d.id")
+    List<DocumentSummaryDto> findSummariesByFolderByNameAfter(@Param("user") User user, @Param("folder") Folder folder,
+                                                              @Param("name") String name, @Param("id") Long id,
+                                                              Limit limit);
+
+    @Query(value = SUMMARY_SELECT + "where d.user = :user",
+            countQuery = "select count(d) from Document d where d.user = :user")
+    Page<DocumentSummaryDto> findSummariesByUser(@Param("user") User user, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where d.batch = :batch order by d.id")
+    List<DocumentSummaryDto> findSummariesByBatch(@Param("batch") UploadBatch batch);
+
     List<Document> findByUserAndFolder(User user, Folder folder);
     Optional<Document> findByIdAndUser(Long id, User user);
+    Optional<DocumentFileView> findFileViewByIdAndUserId(Long id, Long userId);
+    Optional<Document> findFirstByUserIdAndContentHashAndOcrSettingsAndStatus(Long userId, String contentHash,
+                                                                             String ocrSettings, Document.Status status);
+
+    @Query(EXPORT_ROW_SELECT + "where d.user.id = :userId and f.path like concat(:path, '%') order by f.path, d.name, d.id")
+    List<DocumentExportRow> findExportRowsByFolderSubtree(@Param("userId") Long userId, @Param("path") String path);
+
+    @Query(EXPORT_ROW_SELECT + "where d.user.id = :userId and d.id in :ids order by d.name, d.id")
+    List<DocumentExportRow> findExportRowsByIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("select d.extractedText from Document d where d.id = :id and d.textHash = :textHash")
+    Optional<String> findExtractedTextByIdAndTextHash(@Param("id") Long id, @Param("textHash") String textHash);
+
+    // OCR jobs of the deleted documents go with them through ON DELETE CASCADE
+    @Modifying
+    @Query(value = "DELETE FROM documents WHERE folder_id IN " +
+            "(SELECT id FROM folders WHERE user_id = :userId AND path LIKE :path || '%')", nativeQuery = true)
+    int deleteByFolderSubtree(@Param("userId") Long userId, @Param("path") String path);
+
+    /**
+     * Ranked full-text search over name and extracted text in Portuguese and English.
+     * Keyset-paginated on (rank, id); snippets are only highlighted for the returned page.
+     * The text is HTML-escaped before highlighting, so the only markup in a snippet is its {@code <mark>} tags.
+     */
+    @Query(value = "WITH q AS (SELECT websearch_to_tsquery('portuguese', :query) || websearch_to_tsquery('english', :query) AS query) " +
+            "SELECT d.id AS \"id\", d.name AS \"name\", d.status AS \"status\", d.folder_id AS \"folderId\", " +
+            "r.rank AS \"rank\", d.created_at AS \"createdAt\", d.updated_at AS \"updatedAt\", " +
+            "ts_headline('portuguese', replace(replace(replace(coalesce(d.extracted_text, ''), " +
+            "'&', '&amp;'), '<', '&lt;'), '>', '&gt;'), q.query, " +
+            "'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=30, MinWords=10') AS \"snippet\" " +
+            "FROM (SELECT d.id, ts_rank_cd(d.search_vector, q.query) AS rank FROM documents d, q " +
+            "      WHERE d.user_id = :userId AND d.search_vector @@ q.query " +
+            "      AND (CAST(:folderId AS BIGINT) IS NULL OR d.folder_id = :folderId) " +
+            "      AND (CAST(:afterRank AS REAL) IS NULL " +
+            "           OR (ts_rank_cd(d.search_vector, q.query), d.id) < (CAST(:afterRank AS REAL), CAST(:afterId AS BIGINT))) " +
+            "      ORDER BY rank DESC, d.id DESC LIMIT :limit) r " +
+            "JOIN documents d ON d.id = r.id CROSS JOIN q " +
+            "ORDER BY r.rank DESC, r.id DESC", nativeQuery = true)
+    List<DocumentSearchResult> search(@Param("userId") Long userId, @Param("query") String query,
+                                      @Param("folderId") Long folderId, @Param("afterRank") Float afterRank,
+                                      @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * Documents whose original is still in the flat layout, in id order.
+     */
+    @Query(value = "SELECT id AS \"id\", original_file_path AS \"originalFilePath\" " +
+            "FROM documents WHERE id > :afterId AND original_file_path NOT LIKE '%/%/%' " +
+            "ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<DocumentFileLocation> findFlatLayoutBatch(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update Document d set d.originalFilePath = :newPath where d.id = :id and d.originalFilePath = :oldPath")
+    int relocateOriginalFile(@Param("id") Long id, @Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    boolean existsByIdAndOriginalFilePath(Long id, String originalFilePath);
+
+    // Only moves a document that OCR has not finished yet: the text of a completed document is
+    // committed before its job ends, so a job failed or recovered after that must leave it alone
+    @Transactional
+    @Modifying
+    @Query("update Document d set d.status = :status, d.updatedAt = :now where d.id = :id " +
+            "and d.status in (com.canscan.ocrsaas.model.Document.Status.PENDING, " +
+            "com.canscan.ocrsaas.model.Document.Status.PROCESSING)")
+    int updateOpenStatus(@Param("id") Long id, @Param("status") Document.Status status, @Param("now") LocalDateTime now);
+
+    // Only a pending document starts processing, so a document cancelled in the meantime stays cancelled,
+    // and only for the current attempt of its job, so a stale worker cannot take it back
+    @Transactional
+    @Modifying
+    @Query("update Document d set d.status = com.canscan.ocrsaas.model.Document.Status.PROCESSING, d.updatedAt = :now " +
+            "where d.id = :id and d.status = com.canscan.ocrsaas.model.Document.Status.PENDING " +
+            "and exists (select j.id from OcrJob j where j.id = :jobId and j.attempts = :attempt " +
+            "and j.lockedBy = :workerId and j.status = com.canscan.ocrsaas.model.OcrJob.Status.RUNNING)")
+    int startProcessing(@Param("id") Long id, @Param("jobId") Long jobId, @Param("attempt") int attempt,
+                        @Param("workerId") String workerId, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Document d set d.status = com.canscan.ocrsaas.model.Document.Status.CANCELLED, d.updatedAt = :now " +
+            "where d.id = :id and d.status in (com.canscan.ocrsaas.model.Document.Status.PENDING, " +
+            "com.canscan.ocrsaas.model.Document.Status.PROCESSING)")
+    int cancel(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Fenced like startProcessing: the text of an attempt that was taken over is discarded
+    @Transactional
+    @Modifying
+    @Query("update Document d set d.status = com.canscan.ocrsaas.model.Document.Status.COMPLETED, " +
+            "d.extractedText = :extractedText, d.textHash = :textHash, " +
+            "d.ocrSettings = :ocrSettings, d.updatedAt = :now where d.id = :id " +
+            "and d.status in (com.canscan.ocrsaas.model.Document.Status.PENDING, " +
+            "com.canscan.ocrsaas.model.Document.Status.PROCESSING) " +
+            "and exists (select j.id from OcrJob j where j.id = :jobId and j.attempts = :attempt " +
+            "and j.lockedBy = :workerId and j.status = com.canscan.ocrsaas.model.OcrJob.Status.RUNNING)")
+    int completeOcr(@Param("id") Long id, @Param("jobId") Long jobId, @Param("attempt") int attempt,
+                    @Param("workerId") String workerId, @Param("extractedText") String extractedText,
+                    @Param("textHash") String textHash,
+                    @Param("ocrSettings") String ocrSettings, @Param("now") LocalDateTime now);
+
+    /**
+     * Fails documents left in PROCESSING since before {@code cutoff} that no queued or running job will ever finish.
+     */
+    @Modifying
+    @Query(value = "UPDATE documents d SET status = 'FAILED', updated_at = :now " +
+            "WHERE d.status = 'PROCESSING' AND d.updated_at < :cutoff AND NOT EXISTS " +
+            "(SELECT 1 FROM ocr_jobs j WHERE j.document_id = d.id AND j.status IN ('QUEUED', 'RUNNING'))", nativeQuery = true)
+    int failStaleProcessing(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
 }
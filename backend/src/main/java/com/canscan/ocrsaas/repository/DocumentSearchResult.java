@@ -0,0 +1,25 @@
+package com.canscan.ocrsaas.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row returned by {@link DocumentRepository#search}.
+ */
+public interface DocumentSearchResult {
+
+    Long getId();
+
+    String getName();
+
+    String getStatus();
+
+    Long getFolderId();
+
+    Float getRank();
+
+    String getSnippet();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
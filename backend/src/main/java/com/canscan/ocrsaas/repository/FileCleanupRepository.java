@@ -0,0 +1,30 @@
+package com.canscan.ocrsaas.repository;
+
+import com.canscan.ocrsaas.model.FileCleanup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FileCleanupRepository extends JpaRepository<FileCleanup, Long> {
+
+    /**
+     * Records the original file of every document in a folder subtree.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_cleanup (file_path) " +
+            "SELECT d.original_file_path FROM documents d JOIN folders f ON f.id = d.folder_id " +
+            "WHERE f.user_id = :userId AND f.path LIKE :path || '%'", nativeQuery = true)
+    int enqueueFolderSubtree(@Param("userId") Long userId, @Param("path") String path);
+
+    // Only rows whose next attempt is due; failed deletions wait out their backoff
+    @Query(value = "SELECT * FROM file_cleanup WHERE next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<FileCleanup> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+}
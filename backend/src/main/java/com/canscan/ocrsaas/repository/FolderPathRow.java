@@ -0,0 +1,13 @@
+package com.canscan.ocrsaas.repository;
+
+/**
+ * Row returned by {@link FolderRepository#findPathRowsBySubtree}.
+ */
+public interface FolderPathRow {
+
+    Long getId();
+
+    String getName();
+
+    String getPath();
+}
@@ -2,9 +2,14 @@ package com.canscan.ocrsaas.repository;
 
 import com.canscan.ocrsaas.model.Folder;
 import com.canscan.ocrsaas.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +20,44 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
     List<Folder> findByUserAndParent(User user, Folder parent);
     Optional<Folder> findByIdAndUser(Long id, User user);
 
+    /**
+     * The user's whole folder tree with direct document counts, in one query.
+     */
+    @Query("select f.id as id, f.name as name, p.id as parentId, f.path as path, count(d) as documentCount " +
+            "from Folder f left join f.parent p left join f.documents d " +
+            "where f.user = :user group by f.id, f.name, p.id, f.path order by f.name, f.id")
+    List<FolderTreeRow> findTreeRowsByUser(@Param("user") User user);
+
+    @Query("select f.id as id, f.name as name, f.path as path from Folder f " +
+            "where f.user.id = :userId and f.path like concat(:path, '%')")
+    List<FolderPathRow> findPathRowsBySubtree(@Param("userId") Long userId, @Param("path") String path);
+
+    /**
+     * Locks the given folders of a user in id order and reads their current paths. Must run before the
+     * folders are loaded any other way in the transaction, or the already loaded copies are returned.
+     */
+    @Query(value = "SELECT * FROM folders WHERE user_id = :userId AND id IN (:ids) ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Folder> findAllByUserForUpdate(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Rewrites the path prefix of a folder and all its descendants after a move.
+     */
+    @Modifying
+    @Query(value = "UPDATE folders SET path = :newPath || substring(path FROM length(:oldPath) + 1) " +
+            "WHERE user_id = :userId AND path LIKE :oldPath || '%'", nativeQuery = true)
+    int movePaths(@Param("userId") Long userId, @Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    @Modifying
+    @Query(value = "DELETE FROM folders WHERE user_id = :userId AND path LIKE :path || '%'", nativeQuery = true)
+    int deleteSubtree(@Param("userId") Long userId, @Param("path") String path);
+
+    @Query("select f from Folder f where f.parent = :parent and f.user = :user order by f.name, f.id")
+    List<Folder> findSubfoldersByName(@Param("user") User user, @Param("parent") Folder parent, Limit limit);
+
+    @Query("select f from Folder f where f.parent = :parent and f.user = :user and (f.name, f.id) > (:name, :id) " +
+            "order by f.name, f.id")
+    List<Folder> findSubfoldersByNameAfter(@Param("user") User user, @Param("parent") Folder parent,
+                                           @Param("name") String name, @Param("id") Long id, Limit limit);
+
 }
@@ -0,0 +1,17 @@
+package com.canscan.ocrsaas.repository;
+
+/**
+ * Row returned by {@link FolderRepository#findTreeRowsByUser}.
+ */
+public interface FolderTreeRow {
+
+    Long getId();
+
+    String getName();
+
+    Long getParentId();
+
+    String getPath();
+
+    Long getDocumentCount();
+}
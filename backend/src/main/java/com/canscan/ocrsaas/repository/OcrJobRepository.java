@@ -0,0 +1,99 @@
+package com.canscan.ocrsaas.repository;
+
+import com.canscan.ocrsaas.model.OcrJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OcrJobRepository extends JpaRepository<OcrJob, Long> {
+
+    @Query(value = "SELECT * FROM ocr_jobs WHERE status = 'QUEUED' AND next_run_at <= :now " +
+            "ORDER BY virtual_time, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OcrJob> findRunnableForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Lease times (locked_at, lease_expires_at) are set and compared on the database clock only,
+    // so clock skew between nodes cannot expire a lease early or keep a dead one alive
+    @Query(value = "SELECT * FROM ocr_jobs WHERE status = 'RUNNING' AND lease_expires_at < CURRENT_TIMESTAMP " +
+            "ORDER BY lease_expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OcrJob> findExpiredLeasesForUpdate(@Param("limit") int limit);
+
+    // Running jobs whose node has not sent a heartbeat within the timeout, or never registered
+    @Query(value = "SELECT j.* FROM ocr_jobs j WHERE j.status = 'RUNNING' " +
+            "AND j.locked_at < CURRENT_TIMESTAMP - :timeoutMs * INTERVAL '1 millisecond' " +
+            "AND NOT EXISTS (SELECT 1 FROM ocr_nodes n WHERE n.id = j.locked_by " +
+            "AND n.heartbeat_at >= CURRENT_TIMESTAMP - :timeoutMs * INTERVAL '1 millisecond') " +
+            "ORDER BY j.id LIMIT :limit FOR UPDATE OF j SKIP LOCKED", nativeQuery = true)
+    List<OcrJob> findOnDeadNodesForUpdate(@Param("timeoutMs") long timeoutMs, @Param("limit") int limit);
+
+    // Starts the leases of freshly claimed jobs; flushes first so the claim itself is written before
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE ocr_jobs SET locked_at = CURRENT_TIMESTAMP, " +
+            "lease_expires_at = CURRENT_TIMESTAMP + :leaseMs * INTERVAL '1 millisecond' WHERE id IN (:ids)",
+            nativeQuery = true)
+    int startLeases(@Param("ids") Collection<Long> ids, @Param("leaseMs") long leaseMs);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ocr_jobs SET lease_expires_at = CURRENT_TIMESTAMP + :leaseMs * INTERVAL '1 millisecond' " +
+            "WHERE id IN (:ids) AND locked_by = :workerId AND status = 'RUNNING'", nativeQuery = true)
+    int extendLeases(@Param("workerId") String workerId, @Param("ids") Collection<Long> ids,
+                     @Param("leaseMs") long leaseMs);
+
+    /**
+     * Ends an attempt as {@code status}. Conditional on the attempt still being current and held by
+     * {@code workerId}, so a stale worker cannot overwrite a job that was recovered or cancelled.
+     *
+     * @return 1 if the attempt was current, 0 otherwise
+     */
+    @Modifying
+    @Query("update OcrJob j set j.status = :status, j.nextRunAt = :nextRunAt, j.lastError = :lastError, " +
+            "j.lockedBy = null, j.lockedAt = null, j.leaseExpiresAt = null, j.updatedAt = :now " +
+            "where j.id = :id and j.attempts = :attempt and j.lockedBy = :workerId " +
+            "and j.status = com.canscan.ocrsaas.model.OcrJob.Status.RUNNING")
+    int endAttempt(@Param("id") Long id, @Param("attempt") int attempt, @Param("workerId") String workerId,
+                   @Param("status") OcrJob.Status status, @Param("nextRunAt") LocalDateTime nextRunAt,
+                   @Param("lastError") String lastError, @Param("now") LocalDateTime now);
+
+    @Query("select j.id from OcrJob j where j.id in :ids and j.status = com.canscan.ocrsaas.model.OcrJob.Status.CANCELLED")
+    List<Long> findCancelledIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update OcrJob j set j.status = com.canscan.ocrsaas.model.OcrJob.Status.CANCELLED, j.leaseExpiresAt = null, " +
+            "j.updatedAt = :now where j.document.id = :documentId and j.status in " +
+            "(com.canscan.ocrsaas.model.OcrJob.Status.QUEUED, com.canscan.ocrsaas.model.OcrJob.Status.RUNNING)")
+    int cancelByDocument(@Param("documentId") Long documentId, @Param("now") LocalDateTime now);
+
+    // Jobs waiting for or holding a worker, across all nodes
+    @Query("select count(j) from OcrJob j where j.status in (com.canscan.ocrsaas.model.OcrJob.Status.QUEUED, " +
+            "com.canscan.ocrsaas.model.OcrJob.Status.RUNNING)")
+    long countOutstanding();
+
+    // System virtual time, locked until the end of the transaction so concurrent enqueues tag one after another
+    @Query(value = "SELECT virtual_time FROM ocr_scheduler_state WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    double lockSystemVirtualTime();
+
+    // Moves the system virtual time up to the tag of a claimed job; it never goes back
+    @Modifying
+    @Query(value = "UPDATE ocr_scheduler_state SET virtual_time = GREATEST(virtual_time, :virtualTime) WHERE id = 1",
+            nativeQuery = true)
+    int advanceSystemVirtualTime(@Param("virtualTime") double virtualTime);
+
+    // Latest finish tag of a flow that is still queued or running, or null when the flow is idle
+    @Query("select max(j.virtualTime) from OcrJob j where j.user.id = :userId and j.priority = :priority " +
+            "and j.status in (com.canscan.ocrsaas.model.OcrJob.Status.QUEUED, com.canscan.ocrsaas.model.OcrJob.Status.RUNNING)")
+    Double findFlowVirtualTime(@Param("userId") Long userId, @Param("priority") OcrJob.Priority priority);
+
+    @Query("select j.user.id as userId, j.priority as priority, count(j) as depth, min(j.createdAt) as oldestCreatedAt " +
+            "from OcrJob j where j.status = com.canscan.ocrsaas.model.OcrJob.Status.QUEUED " +
+            "group by j.user.id, j.priority order by count(j) desc")
+    List<OcrQueueTenantRow> findQueuedByTenant();
+
+}
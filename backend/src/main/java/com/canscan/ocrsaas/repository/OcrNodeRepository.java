@@ -0,0 +1,32 @@
+package com.canscan.ocrsaas.repository;
+
+import com.canscan.ocrsaas.model.OcrNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface OcrNodeRepository extends JpaRepository<OcrNode, String> {
+
+    // Heartbeats are stamped and compared on the database clock, so clock skew between nodes cannot declare a live node dead
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ocr_nodes (id, status, threads, running_jobs, started_at, heartbeat_at) " +
+            "VALUES (:id, :status, :threads, :runningJobs, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (id) DO UPDATE SET status = EXCLUDED.status, threads = EXCLUDED.threads, " +
+            "running_jobs = EXCLUDED.running_jobs, heartbeat_at = EXCLUDED.heartbeat_at", nativeQuery = true)
+    void heartbeat(@Param("id") String id, @Param("status") String status, @Param("threads") int threads,
+                   @Param("runningJobs") int runningJobs);
+
+    @Modifying
+    @Query(value = "DELETE FROM ocr_nodes WHERE heartbeat_at < CURRENT_TIMESTAMP - :timeoutMs * INTERVAL '1 millisecond'",
+            nativeQuery = true)
+    int deleteDead(@Param("timeoutMs") long timeoutMs);
+
+    List<OcrNode> findAllByOrderByStartedAt();
+}
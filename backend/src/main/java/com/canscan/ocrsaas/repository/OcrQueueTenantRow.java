@@ -0,0 +1,19 @@
+package com.canscan.ocrsaas.repository;
+
+import com.canscan.ocrsaas.model.OcrJob;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row returned by {@link OcrJobRepository#findQueuedByTenant}: the queued jobs of one flow.
+ */
+public interface OcrQueueTenantRow {
+
+    Long getUserId();
+
+    OcrJob.Priority getPriority();
+
+    Long getDepth();
+
+    LocalDateTime getOldestCreatedAt();
+}
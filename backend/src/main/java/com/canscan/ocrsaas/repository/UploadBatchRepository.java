@@ -0,0 +1,20 @@
+package com.canscan.ocrsaas.repository;
+
+import com.canscan.ocrsaas.model.UploadBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UploadBatchRepository extends JpaRepository<UploadBatch, Long> {
+
+    Optional<UploadBatch> findByIdAndUserId(Long id, Long userId);
+
+    @Modifying
+    @Query("update UploadBatch b set b.totalFiles = :totalFiles, b.rejectedFiles = :rejectedFiles where b.id = :id")
+    int updateCounts(@Param("id") Long id, @Param("totalFiles") int totalFiles, @Param("rejectedFiles") int rejectedFiles);
+}
@@ -0,0 +1,371 @@
+package com.canscan.ocrsaas.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local disk cache for files rendered from document data, such as exports of the extracted text.
+ * <p>
+ * Entries are keyed by the caller, typically by a hash of their input, so a changed input simply
+ * misses and the stale entry ages out. The least recently used entries are evicted once the cache
+ * grows past {@code app.artifacts.cache.max-size}. Concurrent requests for a key that is not cached
+ * yet wait for a single render instead of each rendering it.
+ * <p>
+ * Every hit comes with its own open channel on the file. Eviction may delete the file while it is
+ * being served, but an open channel keeps reading it until it is closed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArtifactCache {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_-]+(/[A-Za-z0-9_.-]+)*");
+    private static final String PART_SUFFIX = ".part";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.artifacts.cache-dir:./cache/artifacts}")
+    private String cacheDir;
+
+    @Value("${app.artifacts.cache.max-size:1GB}")
+    private DataSize maxSize;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by itself
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private Path root;
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+
+    /**
+     * Writes an artifact to {@code out}. The stream is closed by the cache.
+     */
+    @FunctionalInterface
+    public interface ArtifactRenderer {
+        void render(OutputStream out) throws IOException;
+    }
+
+    /**
+     * A cached file, ready to be served. Must be closed once served.
+     *
+     * @param path    the file in the cache directory, which may be evicted while the artifact is open
+     * @param sha256  hex-encoded SHA-256 of the file
+     * @param size    size of the file in bytes
+     * @param channel the file opened for reading; read it rather than reopening {@code path}
+     */
+    public record CachedArtifact(Path path, String sha256, long size, FileChannel channel) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // sha256 is null for entries found on disk at startup until they are first read
+    private record Entry(Path path, long size, String sha256) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        hits = Counter.builder("artifact.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("artifact.cache.requests").tag("result", "miss").register(meterRegistry);
+        coalesced = Counter.builder("artifact.cache.requests").tag("result", "coalesced").register(meterRegistry);
+        Gauge.builder("artifact.cache.size", totalBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        loadIndex();
+    }
+
+    /**
+     * Opens the artifact cached under {@code key}, rendering it with {@code renderer} on a miss.
+     * The caller must close the returned artifact.
+     */
+    public CachedArtifact get(String key, ArtifactRenderer renderer) throws IOException {
+        checkKey(key);
+
+        CachedArtifact cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        while (true) {
+            CompletableFuture<Void> flight = new CompletableFuture<>();
+            CompletableFuture<Void> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.increment();
+                await(existing);
+                cached = lookup(key);
+                if (cached != null) {
+                    return cached;
+                }
+                // Evicted again before this request could open it
+                continue;
+            }
+
+            try {
+                // Another render may have finished between the lookup and claiming the key
+                cached = lookup(key);
+                if (cached == null) {
+                    misses.increment();
+                    cached = render(key, renderer);
+                }
+                flight.complete(null);
+                return cached;
+            } catch (IOException | RuntimeException e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+    }
+
+    /**
+     * Opens the artifact cached under {@code key}, or returns {@code null} without rendering it.
+     * The caller must close the returned artifact.
+     */
+    public CachedArtifact find(String key) throws IOException {
+        checkKey(key);
+        CachedArtifact cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    private static void checkKey(String key) {
+        if (!KEY_PATTERN.matcher(key).matches() || key.contains("..")) {
+            throw new IllegalArgumentException("Invalid cache key: " + key);
+        }
+    }
+
+    private CachedArtifact lookup(String key) throws IOException {
+        Entry entry;
+        FileChannel channel;
+        synchronized (index) {
+            entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+            // Opened under the lock: eviction unlinks a file only after taking it out of the index
+            try {
+                channel = FileChannel.open(entry.path(), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                if (index.remove(key, entry)) {
+                    totalBytes.addAndGet(-entry.size());
+                }
+                return null;
+            }
+        }
+
+        try {
+            String sha256 = entry.sha256();
+            if (sha256 == null) {
+                sha256 = hash(channel);
+                synchronized (index) {
+                    index.replace(key, entry, new Entry(entry.path(), entry.size(), sha256));
+                }
+            }
+
+            // Keeps the recency order across restarts, which rebuild it from modification times
+            try {
+                Files.setLastModifiedTime(entry.path(), FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                log.debug("Could not touch cached artifact {}", entry.path(), e);
+            }
+            return new CachedArtifact(entry.path(), sha256, entry.size(), channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private CachedArtifact render(String key, ArtifactRenderer renderer) throws IOException {
+        Path target = root.resolve(key);
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + PART_SUFFIX);
+
+        MessageDigest digest = sha256Digest();
+        try {
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(part)), digest)) {
+                renderer.render(out);
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+
+        // Opened before the entry is published, so a concurrent eviction cannot pull it away first
+        FileChannel channel = FileChannel.open(target, StandardOpenOption.READ);
+        Entry entry = new Entry(target, channel.size(), HexFormat.of().formatHex(digest.digest()));
+        put(key, entry);
+        evict(key);
+        return new CachedArtifact(entry.path(), entry.sha256(), entry.size(), channel);
+    }
+
+    private void put(String key, Entry entry) {
+        synchronized (index) {
+            Entry previous = index.put(key, entry);
+            if (previous != null) {
+                totalBytes.addAndGet(-previous.size());
+            }
+            totalBytes.addAndGet(entry.size());
+        }
+    }
+
+    /**
+     * Drops least recently used entries until the cache fits its budget, never evicting {@code keep}.
+     * Files are deleted outside the lock; an artifact that is still open keeps reading its file.
+     */
+    private void evict(String keep) {
+        List<Path> victims = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+            while (totalBytes.get() > maxSize.toBytes() && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                if (eldest.getKey().equals(keep)) {
+                    continue;
+                }
+                it.remove();
+                totalBytes.addAndGet(-eldest.getValue().size());
+                victims.add(eldest.getValue().path());
+            }
+        }
+
+        for (Path victim : victims) {
+            try {
+                Files.deleteIfExists(victim);
+            } catch (IOException e) {
+                log.warn("Could not evict cached artifact {}", victim, e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index from the files left by a previous run, oldest first,
+     * and removes renders that were interrupted before being moved into place.
+     */
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+
+        List<Path> cached = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(PART_SUFFIX)) {
+                Files.deleteIfExists(file);
+            } else {
+                cached.add(file);
+            }
+        }
+
+        try {
+            cached.sort(Comparator.comparing(ArtifactCache::lastModified));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Path file : cached) {
+            String key = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+            put(key, new Entry(file, Files.size(file), null));
+        }
+        evict(null);
+
+        log.info("Artifact cache at {} holds {} file(s), {} byte(s)", root, index.size(), totalBytes.get());
+    }
+
+    private void await(CompletableFuture<Void> flight) throws IOException {
+        try {
+            flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an artifact to render", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Could not render artifact", e.getCause());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Positional reads, so the channel is left as the caller will get it
+    private static String hash(FileChannel channel) throws IOException {
+        MessageDigest digest = sha256Digest();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+            position += read;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.canscan.ocrsaas.config.security.JwtTokenUtil;
 import com.canscan.ocrsaas.dto.AuthRequestDto;
 import com.canscan.ocrsaas.dto.AuthResponseDto;
 import com.canscan.ocrsaas.dto.RegisterRequestDto;
+import com.canscan.ocrsaas.exception.BadRequestException;
 import com.canscan.ocrsaas.exception.ResourceNotFoundException;
 import com.canscan.ocrsaas.model.User;
 import com.canscan.ocrsaas.repository.UserRepository;
@@ -37,11 +38,12 @@ public class AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String jwt = jwtTokenUtil.generateToken(userDetails);
 
         User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", userDetails.getUsername()));
 
+        String jwt = jwtTokenUtil.generateToken(user);
+
         return AuthResponseDto.builder()
                 .token(jwt)
                 .type("Bearer")
@@ -56,12 +58,12 @@ public class AuthService {
     public AuthResponseDto register(RegisterRequestDto registerRequest) {
         // Check if username is already taken
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
-            throw new RuntimeException("Username is already taken");
+            throw new BadRequestException("Username is already taken");
         }
 
         // Check if email is already in use
         if (userRepository.existsByEmail(registerRequest.getEmail())) {
-            throw new RuntimeException("Email is already in use");
+            throw new BadRequestException("Email is already in use");
         }
 
         // Create new user
@@ -78,13 +80,7 @@ public class AuthService {
         createRootFolder(user);
 
         // Return JWT
-        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(user.getRole().name())
-                .build();
-
-        String jwt = jwtTokenUtil.generateToken(userDetails);
+        String jwt = jwtTokenUtil.generateToken(user);
 
         return AuthResponseDto.builder()
                 .token(jwt)
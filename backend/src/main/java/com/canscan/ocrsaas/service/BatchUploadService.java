@@ -0,0 +1,336 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.dto.BatchItemDto;
+import com.canscan.ocrsaas.dto.UploadBatchDto;
+import com.canscan.ocrsaas.exception.FileStorageException;
+import com.canscan.ocrsaas.exception.FileTooLargeException;
+import com.canscan.ocrsaas.exception.OcrOverloadedException;
+import com.canscan.ocrsaas.exception.ResourceNotFoundException;
+import com.canscan.ocrsaas.model.Document;
+import com.canscan.ocrsaas.model.Folder;
+import com.canscan.ocrsaas.model.OcrJob;
+import com.canscan.ocrsaas.model.UploadBatch;
+import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.repository.FolderRepository;
+import com.canscan.ocrsaas.repository.UploadBatchRepository;
+import com.canscan.ocrsaas.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Uploads many files, or the files of a ZIP, in one request.
+ * <p>
+ * Files are stored one after the other and committed in chunks of {@code app.batch.chunk-size}
+ * documents: each chunk inserts its documents and OCR jobs as JDBC batches in one short
+ * transaction, so OCR workers start on the first pages while the rest of the batch is still
+ * being received. Files that cannot be stored or are not a supported type are rejected
+ * individually without failing the batch.
+ * <p>
+ * Each chunk is admitted by {@link OcrAdmissionController} for its number of documents just before
+ * it is inserted. Once a chunk is refused, its files and every file after it are rejected.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchUploadService {
+
+    private final UploadBatchRepository uploadBatchRepository;
+    private final DocumentRepository documentRepository;
+    private final FolderRepository folderRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final FileStorageService fileStorageService;
+    private final OcrJobService ocrJobService;
+    private final OcrAdmissionController ocrAdmissionController;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.batch.max-files:500}")
+    private int maxFiles;
+
+    // Kept equal to hibernate.jdbc.batch_size, so a chunk is one batch per table
+    @Value("${app.batch.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${app.file.stream.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    public UploadBatchDto uploadFiles(List<MultipartFile> files, Long folderId) throws IOException {
+        ocrAdmissionController.checkCapacity();
+        BatchWriter writer = start(folderId);
+        try {
+            for (MultipartFile file : files) {
+                if (writer.isTruncated()) {
+                    break;
+                }
+                String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName();
+                try (InputStream in = file.getInputStream()) {
+                    if (isZip(name, file.getContentType())) {
+                        writer.addZip(in);
+                    } else {
+                        writer.add(name, in);
+                    }
+                }
+            }
+        } finally {
+            writer.finish();
+        }
+        return writer.toDto();
+    }
+
+    public UploadBatchDto uploadZip(InputStream body, Long folderId) throws IOException {
+        // The number of files is only known as the archive is read, so chunks are admitted as they fill
+        ocrAdmissionController.checkCapacity();
+        BatchWriter writer = start(folderId);
+        try {
+            writer.addZip(body);
+        } finally {
+            writer.finish();
+        }
+        return writer.toDto();
+    }
+
+    public UploadBatchDto getBatch(Long id) {
+        UploadBatch batch = uploadBatchRepository.findByIdAndUserId(id, userService.getAuthenticatedUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("Batch", "id", id));
+
+        List<BatchItemDto> items = documentRepository.findSummariesByBatch(batch).stream()
+                .map(summary -> BatchItemDto.builder()
+                        .name(summary.getName())
+                        .documentId(summary.getId())
+                        .status(summary.getStatus())
+                        .build())
+                .toList();
+
+        return UploadBatchDto.builder()
+                .id(batch.getId())
+                .folderId(batch.getFolder() != null ? batch.getFolder().getId() : null)
+                .totalFiles(batch.getTotalFiles())
+                .rejectedFiles(batch.getRejectedFiles())
+                .statusCounts(countByStatus(items))
+                .items(items)
+                .createdAt(batch.getCreatedAt())
+                .build();
+    }
+
+    private BatchWriter start(Long folderId) {
+        User user = userService.getAuthenticatedUser();
+        Folder folder = null;
+        if (folderId != null) {
+            folder = folderRepository.findByIdAndUser(folderId, user)
+                    .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId));
+        }
+
+        UploadBatch batch = uploadBatchRepository.save(UploadBatch.builder()
+                .user(user)
+                .folder(folder)
+                .build());
+        return new BatchWriter(batch, user.getId(), folderId);
+    }
+
+    private static boolean isZip(String name, String contentType) {
+        return name.toLowerCase(Locale.ROOT).endsWith(".zip")
+                || "application/zip".equals(contentType)
+                || "application/x-zip-compressed".equals(contentType);
+    }
+
+    private static Map<String, Long> countByStatus(List<BatchItemDto> items) {
+        return items.stream().collect(Collectors.groupingBy(BatchItemDto::getStatus, TreeMap::new, Collectors.counting()));
+    }
+
+    /**
+     * State of one batch while its files are received.
+     */
+    private class BatchWriter {
+
+        private final UploadBatch batch;
+        private final Long userId;
+        private final Long folderId;
+        private final List<BatchItemDto> items = new ArrayList<>();
+        // Stored but not yet inserted, with their items in the same order
+        private final List<Document> pending = new ArrayList<>();
+        private final List<BatchItemDto> pendingItems = new ArrayList<>();
+        private int rejected;
+        // Why the files still to come are refused, once the batch is full or admission refused a chunk
+        private String refusal;
+        private boolean truncated;
+
+        BatchWriter(UploadBatch batch, Long userId, Long folderId) {
+            this.batch = batch;
+            this.userId = userId;
+            this.folderId = folderId;
+        }
+
+        void addZip(InputStream in) throws IOException {
+            ZipInputStream zip = new ZipInputStream(in);
+            ZipEntry entry;
+            // Once the batch is full, the rest of the archive is not even read
+            while (!truncated && (entry = zip.getNextEntry()) != null) {
+                String name = StringUtils.getFilename(StringUtils.cleanPath(entry.getName()));
+                // Directories and the metadata archivers add, such as __MACOSX/ and .DS_Store
+                if (entry.isDirectory() || entry.getName().startsWith("__MACOSX/")
+                        || name == null || name.isEmpty() || name.startsWith(".")) {
+                    continue;
+                }
+                // storeStream closes what it reads, which must not close the archive
+                add(name, StreamUtils.nonClosing(zip));
+            }
+        }
+
+        void add(String name, InputStream in) {
+            if (truncated) {
+                return;
+            }
+            if (refusal == null && items.size() >= maxFiles) {
+                refusal = "A batch can contain at most " + maxFiles + " files";
+            }
+            if (refusal != null) {
+                truncated = true;
+                reject(name, refusal + "; this file and any after it were not read");
+                return;
+            }
+
+            StoredFile storedFile;
+            try {
+                storedFile = fileStorageService.storeStream(in, name, "originals", maxFileSize.toBytes());
+            } catch (FileTooLargeException | FileStorageException e) {
+                reject(name, e.getMessage());
+                return;
+            }
+            if (storedFile.contentType() == null) {
+                fileStorageService.deleteFile(storedFile.path());
+                reject(name, "Unsupported file type");
+                return;
+            }
+
+            Document document = new Document();
+            document.setName(name);
+            document.setOriginalFilePath(storedFile.path());
+            document.setContentHash(storedFile.sha256());
+            document.setContentType(storedFile.contentType());
+            document.setSizeBytes(storedFile.size());
+            document.setStatus(Document.Status.PENDING);
+
+            BatchItemDto item = BatchItemDto.builder().name(name).build();
+            items.add(item);
+            pending.add(document);
+            pendingItems.add(item);
+
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Inserts the pending documents and their OCR jobs; workers pick them up once this commits.
+         * Rejects them instead when admission control refuses them.
+         */
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                ocrAdmissionController.admit(pending.size());
+            } catch (OcrOverloadedException e) {
+                refusal = e.getMessage();
+                discardPending(refusal);
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    User user = userRepository.getReferenceById(userId);
+                    Folder folder = folderId != null ? folderRepository.getReferenceById(folderId) : null;
+                    UploadBatch batchReference = uploadBatchRepository.getReferenceById(batch.getId());
+                    for (Document document : pending) {
+                        document.setUser(user);
+                        document.setFolder(folder);
+                        document.setBatch(batchReference);
+                    }
+                    documentRepository.saveAll(pending);
+                    ocrJobService.enqueueAll(pending, OcrJob.Priority.BULK);
+                });
+
+                for (int i = 0; i < pending.size(); i++) {
+                    pendingItems.get(i).setDocumentId(pending.get(i).getId());
+                    pendingItems.get(i).setStatus(pending.get(i).getStatus().name());
+                }
+            } catch (RuntimeException e) {
+                discardPending("Could not be saved");
+                throw e;
+            } finally {
+                pending.clear();
+                pendingItems.clear();
+            }
+        }
+
+        private void discardPending(String reason) {
+            pending.forEach(document -> fileStorageService.deleteFile(document.getOriginalFilePath()));
+            for (BatchItemDto item : pendingItems) {
+                rejected++;
+                item.setStatus(BatchItemDto.STATUS_REJECTED);
+                item.setError(reason);
+            }
+            pending.clear();
+            pendingItems.clear();
+        }
+
+        /**
+         * Whether the batch reached {@code app.batch.max-files} or a chunk was refused admission;
+         * files after that are skipped, with one rejected item standing for all of them.
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        private void reject(String name, String reason) {
+            rejected++;
+            items.add(BatchItemDto.builder()
+                    .name(name)
+                    .status(BatchItemDto.STATUS_REJECTED)
+                    .error(reason)
+                    .build());
+        }
+
+        /**
+         * Inserts what is still pending and records the final counts, also when the upload failed midway.
+         */
+        void finish() {
+            try {
+                flush();
+            } finally {
+                transactionTemplate.executeWithoutResult(status ->
+                        uploadBatchRepository.updateCounts(batch.getId(), items.size(), rejected));
+            }
+        }
+
+        UploadBatchDto toDto() {
+            return UploadBatchDto.builder()
+                    .id(batch.getId())
+                    .folderId(folderId)
+                    .totalFiles(items.size())
+                    .rejectedFiles(rejected)
+                    .statusCounts(countByStatus(items))
+                    .items(items)
+                    .createdAt(batch.getCreatedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.canscan.ocrsaas.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Detects the formats the OCR pipeline can read from their leading magic bytes.
+ */
+final class ContentTypeSniffer {
+
+    static final int HEADER_LENGTH = 8;
+
+    private ContentTypeSniffer() {
+    }
+
+    /**
+     * @return the detected media type, or {@code null} when the format is not supported
+     */
+    static String detect(byte[] header, int length) {
+        if (startsWith(header, length, '%', 'P', 'D', 'F')) {
+            return MediaType.APPLICATION_PDF_VALUE;
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(header, length, 'I', 'I', 0x2A, 0x00) || startsWith(header, length, 'M', 'M', 0x00, 0x2A)) {
+            return "image/tiff";
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (startsWith(header, length, 'B', 'M')) {
+            return "image/bmp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque cursors for the API.
+ */
+final class CursorCodec {
+
+    // PostgreSQL text cannot contain NUL, so it never appears inside a value
+    private static final String SEPARATOR = "\u0000";
+
+    private CursorCodec() {
+    }
+
+    static String encode(Object... values) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splits a cursor back into its values.
+     *
+     * @throws BadRequestException if the cursor is not one of ours or has another number of values
+     */
+    static String[] decode(String cursor, int expectedParts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+        String[] parts = raw.split(SEPARATOR, -1);
+        if (parts.length != expectedParts) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return parts;
+    }
+
+    static Long parseLong(String part) {
+        try {
+            return Long.valueOf(part);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    static Float parseFloat(String part) {
+        try {
+            return Float.valueOf(part);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+}
@@ -1,65 +1,65 @@
 package com.canscan.ocrsaas.service;
 
-import com.canscan.ocrsaas.exception.FileStorageException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Path;
-import java.util.UUID;
+import java.io.OutputStream;
+import java.io.StringReader;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DocService {
 
-    private final FileStorageService fileStorageService;
+    private final StreamingDocxWriter streamingDocxWriter;
 
-    public String generateDoc(String text, String originalFileName) {
-        try {
-            // Create a new document
-            XWPFDocument document = new XWPFDocument();
+    // "streaming" writes the package directly; "xwpf" builds it with Apache POI
+    @Value("${app.doc.writer:streaming}")
+    private String writer;
 
-            // Split text into paragraphs
-            String[] paragraphs = text.split("\n");
+    private static final String WRITER_XWPF = "xwpf";
 
-            // Add each paragraph to the document
-            for (String paragraph : paragraphs) {
-                if (!paragraph.trim().isEmpty()) {
-                    XWPFParagraph p = document.createParagraph();
-                    XWPFRun run = p.createRun();
-                    run.setText(paragraph);
-                }
-            }
-
-            // Generate a unique filename
-            String baseName = originalFileName;
-            if (baseName.contains(".")) {
-                baseName = baseName.substring(0, baseName.lastIndexOf('.'));
-            }
-            String docFileName = baseName + "_" + UUID.randomUUID().toString() + ".docx";
+    /**
+     * Writes the DOCX for {@code text} to {@code out} with the configured writer.
+     */
+    public void writeDocx(String text, OutputStream out) throws IOException {
+        if (WRITER_XWPF.equals(writer)) {
+            writeXwpf(text, out);
+        } else {
+            streamingDocxWriter.write(new StringReader(text), out);
+        }
+    }
 
-            // Create subdirectory
-            String subdirectory = "docs";
-            Path targetLocation = fileStorageService.getFilePath(subdirectory);
+    /**
+     * Builds the whole document in memory with XWPF. Kept as a fallback for the streaming writer.
+     */
+    private void writeXwpf(String text, OutputStream out) throws IOException {
+        try (XWPFDocument document = new XWPFDocument()) {
+            // Split text into pages, then each page into paragraphs
+            String[] pages = text.split(OcrService.PAGE_SEPARATOR);
 
-            // Save the document
-            String filePath = subdirectory + "/" + docFileName;
-            Path fullPath = fileStorageService.getFilePath(filePath);
+            for (int i = 0; i < pages.length; i++) {
+                // Start every page after the first on a new page
+                boolean pageBreak = i > 0;
 
-            try (FileOutputStream out = new FileOutputStream(fullPath.toFile())) {
-                document.write(out);
+                for (String paragraph : pages[i].split("\n")) {
+                    if (!paragraph.trim().isEmpty()) {
+                        XWPFParagraph p = document.createParagraph();
+                        p.setPageBreak(pageBreak);
+                        pageBreak = false;
+                        XWPFRun run = p.createRun();
+                        run.setText(paragraph);
+                    }
+                }
             }
 
-            return filePath;
-
-        } catch (IOException e) {
-            throw new FileStorageException("Could not generate DOC file", e);
+            document.write(out);
         }
     }
 }
@@ -1,41 +1,207 @@
 package com.canscan.ocrsaas.service;
 
+import com.canscan.ocrsaas.dto.CursorPageDto;
 import com.canscan.ocrsaas.dto.DocumentDto;
+import com.canscan.ocrsaas.dto.DocumentSearchHitDto;
+import com.canscan.ocrsaas.dto.DocumentSummaryDto;
+import com.canscan.ocrsaas.dto.DocumentTextDto;
 import com.canscan.ocrsaas.dto.DocumentUpdateDto;
+import com.canscan.ocrsaas.exception.BadRequestException;
 import com.canscan.ocrsaas.exception.FileStorageException;
+import com.canscan.ocrsaas.exception.FileTooLargeException;
+import com.canscan.ocrsaas.exception.OcrCancelledException;
 import com.canscan.ocrsaas.exception.ResourceNotFoundException;
+import com.canscan.ocrsaas.exception.UnsupportedFileTypeException;
 import com.canscan.ocrsaas.model.Document;
 import com.canscan.ocrsaas.model.Folder;
+import com.canscan.ocrsaas.model.OcrJob;
 import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.DocumentExportRow;
+import com.canscan.ocrsaas.repository.DocumentFileView;
 import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.repository.DocumentSearchResult;
+import com.canscan.ocrsaas.repository.FolderPathRow;
 import com.canscan.ocrsaas.repository.FolderRepository;
+import com.canscan.ocrsaas.service.export.ExportArchive;
+import com.canscan.ocrsaas.service.export.ExportFormat;
+import com.canscan.ocrsaas.service.export.ExportService;
+import com.canscan.ocrsaas.service.ocr.OcrTask;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class DocumentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_EXPORT_DOCUMENTS = 1000;
+    private static final String SORT_CREATED_AT = "createdAt";
+    private static final String SORT_NAME = "name";
+
     private final DocumentRepository documentRepository;
     private final FolderRepository folderRepository;
     private final UserService userService;
     private final FileStorageService fileStorageService;
     private final OcrService ocrService;
-    private final DocService docService;
+    private final ExportService exportService;
+    private final ArtifactCache artifactCache;
+    private final OcrJobService ocrJobService;
+    private final OcrAdmissionController ocrAdmissionController;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.file.stream.max-file-size:100MB}")
+    private DataSize maxStreamUploadSize;
+
+    public Page<DocumentSummaryDto> getAllDocuments(Pageable pageable) {
+        User user = userService.getAuthenticatedUser();
+        return documentRepository.findSummariesByUser(user, pageable);
+    }
+
+    /**
+     * Lists the current user's documents one keyset page at a time, newest first
+     * ({@code sort=createdAt}) or by name ({@code sort=name}). No count query is run.
+     */
+    public CursorPageDto<DocumentSummaryDto> scrollDocuments(String sort, String cursor, int size) {
+        return scroll(userService.getAuthenticatedUser(), null, sort, cursor, size);
+    }
 
-    public Page<DocumentDto> getAllDocuments(Pageable pageable) {
+    public CursorPageDto<DocumentSummaryDto> scrollFolderDocuments(Long folderId, String sort, String cursor, int size) {
         User user = userService.getAuthenticatedUser();
-        Page<Document> documents = documentRepository.findByUser(user, pageable);
-        return documents.map(this::mapToDto);
+        Folder folder = folderRepository.findByIdAndUser(folderId, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId));
+        return scroll(user, folder, sort, cursor, size);
+    }
+
+    private CursorPageDto<DocumentSummaryDto> scroll(User user, Folder folder, String sort, String cursor, int size) {
+        boolean byName = isSortByName(sort);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<DocumentSummaryDto> rows;
+        if (cursor == null) {
+            if (byName) {
+                rows = folder == null
+                        ? documentRepository.findSummariesByUserByName(user, limit)
+                        : documentRepository.findSummariesByFolderByName(user, folder, limit);
+            } else {
+                rows = folder == null
+                        ? documentRepository.findSummariesByUserNewestFirst(user, limit)
+                        : documentRepository.findSummariesByFolderNewestFirst(user, folder, limit);
+            }
+        } else {
+            // The sort is part of the cursor, so a cursor cannot be replayed against another ordering
+            String[] position = CursorCodec.decode(cursor, 3);
+            if (!position[0].equals(byName ? SORT_NAME : SORT_CREATED_AT)) {
+                throw new BadRequestException("Cursor does not match sort '" + sort + "'");
+            }
+            Long afterId = CursorCodec.parseLong(position[2]);
+            if (byName) {
+                rows = folder == null
+                        ? documentRepository.findSummariesByUserByNameAfter(user, position[1], afterId, limit)
+                        : documentRepository.findSummariesByFolderByNameAfter(user, folder, position[1], afterId, limit);
+            } else {
+                LocalDateTime afterCreatedAt = parseCursorTimestamp(position[1]);
+                rows = folder == null
+                        ? documentRepository.findSummariesByUserNewestFirstAfter(user, afterCreatedAt, afterId, limit)
+                        : documentRepository.findSummariesByFolderNewestFirstAfter(user, folder, afterCreatedAt, afterId, limit);
+            }
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            DocumentSummaryDto last = rows.get(rows.size() - 1);
+            nextCursor = byName
+                    ? CursorCodec.encode(SORT_NAME, last.getName(), last.getId())
+                    : CursorCodec.encode(SORT_CREATED_AT, last.getCreatedAt(), last.getId());
+        }
+
+        return CursorPageDto.<DocumentSummaryDto>builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static boolean isSortByName(String sort) {
+        if (sort == null || SORT_CREATED_AT.equals(sort)) {
+            return false;
+        }
+        if (SORT_NAME.equals(sort)) {
+            return true;
+        }
+        throw new BadRequestException("Unsupported sort '" + sort + "', expected '" + SORT_CREATED_AT + "' or '" + SORT_NAME + "'");
+    }
+
+    private static LocalDateTime parseCursorTimestamp(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    public CursorPageDto<DocumentSearchHitDto> searchDocuments(String query, Long folderId, String cursor, int size) {
+        Long userId = userService.getAuthenticatedUserId();
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Float afterRank = null;
+        Long afterId = null;
+        if (cursor != null) {
+            String[] position = CursorCodec.decode(cursor, 2);
+            afterRank = CursorCodec.parseFloat(position[0]);
+            afterId = CursorCodec.parseLong(position[1]);
+        }
+
+        // Fetch one extra row to know whether there is a next page
+        List<DocumentSearchResult> rows = documentRepository.search(userId, query, folderId, afterRank, afterId, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        List<DocumentSearchHitDto> hits = rows.stream().map(this::mapToSearchHitDto).toList();
+        String nextCursor = null;
+        if (hasMore) {
+            DocumentSearchResult last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(last.getRank(), last.getId());
+        }
+
+        return CursorPageDto.<DocumentSearchHitDto>builder()
+                .items(hits)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     public DocumentDto getDocument(Long id) {
@@ -46,62 +212,130 @@ public class DocumentService {
         return mapToDto(document);
     }
 
+    public DocumentTextDto getDocumentText(Long id) {
+        User user = userService.getAuthenticatedUser();
+        Document document = documentRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", id));
+
+        return DocumentTextDto.builder()
+                .id(document.getId())
+                .extractedText(document.getExtractedText())
+                .build();
+    }
+
     @Transactional
     public DocumentDto uploadAndProcessDocument(MultipartFile file, Long folderId) throws IOException {
-        User user = userService.getAuthenticatedUser();
+        ocrAdmissionController.checkCapacity();
 
         // Store the original file
-        String originalFilePath = fileStorageService.storeFile(file, "originals");
-
-        // Create document entity
-        Document document = new Document();
-        document.setName(file.getOriginalFilename());
-        document.setOriginalFilePath(originalFilePath);
-        document.setStatus(Document.Status.PENDING);
-        document.setUser(user);
-
-        // Set folder if provided
-        if (folderId != null) {
-            Folder folder = folderRepository.findByIdAndUser(folderId, user)
-                    .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId));
-            document.setFolder(folder);
-        }
+        StoredFile storedFile = fileStorageService.storeFile(file, "originals");
+        return createDocument(storedFile, file.getOriginalFilename(), folderId);
+    }
 
-        // Save document
-        document = documentRepository.save(document);
+    /**
+     * Stores a raw request body straight to disk and queues it for OCR. The body is streamed
+     * outside any transaction, so a slow client never holds a database connection.
+     */
+    public DocumentDto uploadAndProcessDocument(InputStream body, long contentLength, String fileName, Long folderId) {
+        if (contentLength > maxStreamUploadSize.toBytes()) {
+            throw new FileTooLargeException(maxStreamUploadSize.toBytes());
+        }
+        ocrAdmissionController.checkCapacity();
 
-        // Process OCR asynchronously (in a real app, this would be done by a background job)
-        processOcr(document.getId());
+        StoredFile storedFile = fileStorageService.storeStream(body, fileName, "originals", maxStreamUploadSize.toBytes());
+        return transactionTemplate.execute(status -> createDocument(storedFile, fileName, folderId));
+    }
 
-        return mapToDto(document);
+    private DocumentDto createDocument(StoredFile storedFile, String fileName, Long folderId) {
+        boolean admitted = false;
+        try {
+            if (storedFile.contentType() == null) {
+                throw new UnsupportedFileTypeException(fileName);
+            }
+
+            // The place in the queue is only taken for a stored, supported file, and given back below if it is not queued
+            ocrAdmissionController.admit(1);
+            admitted = true;
+
+            User user = userService.getAuthenticatedUser();
+
+            // Create document entity
+            Document document = new Document();
+            document.setName(fileName);
+            document.setOriginalFilePath(storedFile.path());
+            document.setContentHash(storedFile.sha256());
+            document.setContentType(storedFile.contentType());
+            document.setSizeBytes(storedFile.size());
+            document.setStatus(Document.Status.PENDING);
+            document.setUser(user);
+
+            // Set folder if provided
+            if (folderId != null) {
+                Folder folder = folderRepository.findByIdAndUser(folderId, user)
+                        .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId));
+                document.setFolder(folder);
+            }
+
+            // Save document
+            document = documentRepository.save(document);
+
+            // Queue OCR; it is picked up by OcrJobWorker once this transaction commits
+            ocrJobService.enqueue(document, OcrJob.Priority.INTERACTIVE);
+
+            return mapToDto(document);
+        } catch (RuntimeException e) {
+            if (admitted) {
+                ocrAdmissionController.release(1);
+            }
+            fileStorageService.deleteFile(storedFile.path());
+            throw e;
+        }
     }
 
-    @Transactional
-    public void processOcr(Long documentId) {
+    /**
+     * Runs OCR for a queued document. Not transactional on purpose: each status change is
+     * its own short update, so no connection is held during OCR. Failures propagate to the
+     * caller, which decides whether to retry. The DOCX is rendered on first download.
+     * <p>
+     * When the same user already has a completed document with identical content and
+     * OCR settings, its text is reused instead of running OCR again.
+     *
+     * @param attempt the job attempt running it; every document update is fenced by it
+     * @param task    deadline and cancellation signal of this run
+     */
+    public void processOcr(Long documentId, OcrJobAttempt attempt, OcrTask task) {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Document", "id", documentId));
+        String settingsKey = ocrService.getSettingsKey();
 
-        try {
-            // Update status
-            document.setStatus(Document.Status.PROCESSING);
-            documentRepository.save(document);
-
-            // Perform OCR
-            String extractedText = ocrService.performOcr(document.getOriginalFilePath());
-            document.setExtractedText(extractedText);
+        Optional<Document> previous = Optional.empty();
+        if (document.getContentHash() != null) {
+            previous = documentRepository.findFirstByUserIdAndContentHashAndOcrSettingsAndStatus(
+                    document.getUser().getId(), document.getContentHash(), settingsKey, Document.Status.COMPLETED);
+        }
 
-            // Generate DOC file (placeholder for now)
-            String docFilePath = docService.generateDoc(extractedText, document.getName());
-            document.setDocFilePath(docFilePath);
+        if (previous.isPresent()) {
+            meterRegistry.counter("ocr.dedup", "result", "hit").increment();
+            String text = previous.get().getExtractedText();
+            documentRepository.completeOcr(documentId, attempt.jobId(), attempt.attempt(), attempt.workerId(),
+                    text, textHash(text), settingsKey, LocalDateTime.now());
+            return;
+        }
+        meterRegistry.counter("ocr.dedup", "result", "miss").increment();
 
-            // Update status
-            document.setStatus(Document.Status.COMPLETED);
-            documentRepository.save(document);
-        } catch (Exception e) {
-            document.setStatus(Document.Status.FAILED);
-            documentRepository.save(document);
-            throw new RuntimeException("Failed to process OCR", e);
+        // Update status
+        if (documentRepository.startProcessing(documentId, attempt.jobId(), attempt.attempt(), attempt.workerId(),
+                LocalDateTime.now()) == 0) {
+            throw new OcrCancelledException("Document " + documentId + " is no longer pending for this attempt");
         }
+
+        // Perform OCR
+        String extractedText = ocrService.performOcr(document.getOriginalFilePath(), task);
+
+        // Update status; a no-op if the document was deleted or cancelled, or the attempt taken over,
+        // while it was being processed
+        documentRepository.completeOcr(documentId, attempt.jobId(), attempt.attempt(), attempt.workerId(),
+                extractedText, textHash(extractedText), settingsKey, LocalDateTime.now());
     }
 
     @Transactional
@@ -112,8 +346,11 @@ public class DocumentService {
 
         document.setName(updateDto.getName());
 
-        if (updateDto.getExtractedText() != null) {
+        if (updateDto.getExtractedText() != null && !updateDto.getExtractedText().equals(document.getExtractedText())) {
             document.setExtractedText(updateDto.getExtractedText());
+            document.setTextHash(textHash(updateDto.getExtractedText()));
+            // Edited text is no longer OCR output, so later uploads of the same file must not reuse it
+            document.setOcrSettings(null);
         }
 
         if (updateDto.getFolderId() != null) {
@@ -128,6 +365,25 @@ public class DocumentService {
         return mapToDto(document);
     }
 
+    /**
+     * Cancels OCR of a pending or processing document. A queued job is dropped; a running
+     * one stops before its next page, and whatever text it would have produced is discarded.
+     */
+    @Transactional
+    public DocumentDto cancelDocument(Long id) {
+        User user = userService.getAuthenticatedUser();
+        Document document = documentRepository.findByIdAndUser(id, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", id));
+
+        // Conditional update, so a worker completing the document at the same moment is not overwritten
+        if (documentRepository.cancel(id, LocalDateTime.now()) == 0) {
+            throw new BadRequestException("Document is " + document.getStatus() + " and cannot be cancelled");
+        }
+        ocrJobService.cancelForDocument(id);
+
+        return mapToDto(documentRepository.findById(id).orElseThrow());
+    }
+
     @Transactional
     public void deleteDocument(Long id) {
         User user = userService.getAuthenticatedUser();
@@ -139,47 +395,134 @@ public class DocumentService {
             fileStorageService.deleteFile(document.getOriginalFilePath());
         }
 
-        if (document.getDocFilePath() != null) {
-            fileStorageService.deleteFile(document.getDocFilePath());
-        }
-
         // Delete document
         documentRepository.delete(document);
     }
 
-    public Resource downloadDocument(Long id) throws IOException {
-        User user = userService.getAuthenticatedUser();
-        Document document = documentRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new ResourceNotFoundException("Document", "id", id));
+    /**
+     * Resolves an export of the document for download, rendering it into the artifact cache on
+     * first use. Text exports are keyed by the hash of the current text, so an edit gets a new file.
+     */
+    public FileDownload getExportDownload(Long id, ExportFormat format) {
+        DocumentFileView document = findFileView(id);
 
         // Check if document has been processed
-        if (document.getStatus() != Document.Status.COMPLETED || document.getDocFilePath() == null) {
-            throw new IllegalStateException("Document is not ready for download");
+        if (document.getStatus() != Document.Status.COMPLETED || document.getTextHash() == null) {
+            throw new BadRequestException("Document is not ready for download");
         }
 
-        // Get file
-        Path filePath = fileStorageService.getFilePath(document.getDocFilePath());
-        Resource resource = new UrlResource(filePath.toUri());
+        try {
+            ArtifactCache.CachedArtifact export = exportService.render(document, format);
+            return new FileDownload(null, export.path(), export.channel(), ExportService.withExtension(document.getName(), format),
+                    format.getContentType(), export.sha256(), export.size());
+        } catch (IOException e) {
+            throw new FileStorageException("Could not generate " + format + " export", e);
+        }
+    }
 
-        // Check if file exists
-        if (!resource.exists()) {
-            throw new FileStorageException("File not found: " + document.getDocFilePath());
+    /**
+     * Resolves the documents of a folder and all its subfolders for a ZIP export.
+     * Subfolders become directories of the archive.
+     */
+    public ExportArchive prepareFolderArchive(Long folderId, ExportFormat format, boolean includePending) {
+        User user = userService.getAuthenticatedUser();
+        Folder folder = folderRepository.findByIdAndUser(folderId, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderId));
+
+        Map<Long, String> names = new HashMap<>();
+        for (FolderPathRow row : folderRepository.findPathRowsBySubtree(user.getId(), folder.getPath())) {
+            names.put(row.getId(), ExportService.safeName(row.getName()));
+        }
+        Map<String, String> directories = new HashMap<>();
+
+        List<ExportArchive.Entry> entries = new ArrayList<>();
+        for (DocumentExportRow row : documentRepository.findExportRowsByFolderSubtree(user.getId(), folder.getPath())) {
+            String directory = directories.computeIfAbsent(row.getFolderPath(), path -> {
+                // Ids below the exported folder, e.g. "/1/5/9/" under "/1/" gives 5 and 9
+                StringBuilder result = new StringBuilder();
+                for (String id : path.substring(folder.getPath().length()).split("/")) {
+                    if (!id.isEmpty()) {
+                        result.append(names.get(Long.valueOf(id))).append('/');
+                    }
+                }
+                return result.toString();
+            });
+            entries.add(new ExportArchive.Entry(directory, row));
         }
 
-        return resource;
+        return new ExportArchive(folder.getName() + ".zip", format, includePending, entries);
     }
 
-    public String getDocumentFilename(Long id) {
-        User user = userService.getAuthenticatedUser();
-        Document document = documentRepository.findByIdAndUser(id, user)
+    /**
+     * Resolves a selection of the current user's documents for a ZIP export. Ids that do not
+     * exist or belong to someone else are ignored.
+     */
+    public ExportArchive prepareDocumentsArchive(List<Long> ids, ExportFormat format, boolean includePending) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("At least one document id is required");
+        }
+        if (ids.size() > MAX_EXPORT_DOCUMENTS) {
+            throw new BadRequestException("At most " + MAX_EXPORT_DOCUMENTS + " documents can be exported at once");
+        }
+
+        List<ExportArchive.Entry> entries = documentRepository
+                .findExportRowsByIds(userService.getAuthenticatedUserId(), ids).stream()
+                .map(row -> new ExportArchive.Entry("", row))
+                .toList();
+        return new ExportArchive("documents.zip", format, includePending, entries);
+    }
+
+    /**
+     * Resolves the original upload for download with a single query.
+     */
+    public FileDownload getOriginalDownload(Long id) {
+        DocumentFileView document = findFileView(id);
+        String contentType = document.getContentType() != null
+                ? document.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        return toDownload(document.getOriginalFilePath(), document.getName(), contentType,
+                document.getContentHash(), document.getSizeBytes());
+    }
+
+    private DocumentFileView findFileView(Long id) {
+        return documentRepository.findFileViewByIdAndUserId(id, userService.getAuthenticatedUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("Document", "id", id));
+    }
+
+    private FileDownload toDownload(String storedPath, String filename, String contentType, String sha256, Long knownSize) {
+        try {
+            long size = knownSize != null ? knownSize : fileStorageService.size(storedPath);
+            Path localPath = fileStorageService.getLocalPath(storedPath).orElse(null);
+            return new FileDownload(storedPath, localPath, null, filename, contentType, sha256, size);
+        } catch (NoSuchFileException e) {
+            throw new FileStorageException("File not found: " + storedPath);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read file " + storedPath, e);
+        }
+    }
 
-        String filename = document.getName();
-        if (!filename.endsWith(".docx")) {
-            filename += ".docx";
+    private static String textHash(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
+    }
 
-        return filename;
+    private DocumentSearchHitDto mapToSearchHitDto(DocumentSearchResult result) {
+        return DocumentSearchHitDto.builder()
+                .id(result.getId())
+                .name(result.getName())
+                .status(result.getStatus())
+                .folderId(result.getFolderId())
+                .rank(result.getRank())
+                .snippet(result.getSnippet())
+                .createdAt(result.getCreatedAt())
+                .updatedAt(result.getUpdatedAt())
+                .build();
     }
 
     private DocumentDto mapToDto(Document document) {
@@ -189,6 +532,8 @@ public class DocumentService {
                 .status(document.getStatus().name())
                 .folderId(document.getFolder() != null ? document.getFolder().getId() : null)
                 .extractedText(document.getExtractedText())
+                .contentType(document.getContentType())
+                .sizeBytes(document.getSizeBytes())
                 .createdAt(document.getCreatedAt())
                 .updatedAt(document.getUpdatedAt())
                 .build();
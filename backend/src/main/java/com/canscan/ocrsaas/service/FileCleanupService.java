@@ -0,0 +1,64 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.FileStorageException;
+import com.canscan.ocrsaas.model.FileCleanup;
+import com.canscan.ocrsaas.repository.FileCleanupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileCleanupService {
+
+    private final FileCleanupRepository fileCleanupRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${app.storage.cleanup.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.storage.cleanup.backoff-ms:30000}")
+    private long backoffMs;
+
+    @Value("${app.storage.cleanup.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    /**
+     * Removes one batch of recorded files from disk. Rows are claimed with SKIP LOCKED,
+     * so several instances can sweep at the same time without deleting the same file twice.
+     * A failed deletion is retried with exponential backoff until it runs out of attempts.
+     *
+     * @return the number of rows removed from the table, at most {@code batchSize}
+     */
+    @Transactional
+    public int sweepBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FileCleanup> batch = fileCleanupRepository.findDueForUpdate(now, batchSize);
+        int removed = 0;
+        for (FileCleanup cleanup : batch) {
+            try {
+                fileStorageService.deleteFile(cleanup.getFilePath());
+                fileCleanupRepository.delete(cleanup);
+                removed++;
+            } catch (FileStorageException e) {
+                cleanup.setAttempts(cleanup.getAttempts() + 1);
+                if (cleanup.getAttempts() >= maxAttempts) {
+                    log.warn("Giving up on deleting file {} after {} attempt(s)", cleanup.getFilePath(), cleanup.getAttempts(), e);
+                    fileCleanupRepository.delete(cleanup);
+                    removed++;
+                } else {
+                    long delay = Math.min(maxBackoffMs, backoffMs << Math.min(cleanup.getAttempts() - 1, 20));
+                    cleanup.setNextAttemptAt(now.plusNanos(delay * 1_000_000));
+                    log.debug("Could not delete file {}, retrying in {} ms", cleanup.getFilePath(), delay, e);
+                }
+            }
+        }
+        return removed;
+    }
+}
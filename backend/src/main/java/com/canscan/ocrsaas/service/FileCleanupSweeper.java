@@ -0,0 +1,36 @@
+package com.canscan.ocrsaas.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the file cleanup table in the background, one transaction per batch.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileCleanupSweeper {
+
+    private final FileCleanupService fileCleanupService;
+
+    @Value("${app.storage.cleanup.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.storage.cleanup.interval-ms:5000}")
+    public void sweep() {
+        int swept = 0;
+        int removed;
+        do {
+            removed = fileCleanupService.sweepBatch(batchSize);
+            swept += removed;
+            // A batch with failures waits for the next run instead of spinning on the storage backend
+        } while (removed == batchSize);
+
+        if (swept > 0) {
+            log.info("Swept {} file cleanup record(s)", swept);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.canscan.ocrsaas.service;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * A stored or cached file resolved for download.
+ *
+ * @param storedPath  relative path of the file in storage, or {@code null} for a file that only exists locally
+ * @param localPath   the file on the local file system, or {@code null} when the storage backend is remote
+ * @param channel     the file already opened for reading, or {@code null}; served instead of reopening
+ *                    {@code localPath} for files that may be deleted meanwhile, and closed once served
+ * @param filename    name to suggest to the client
+ * @param contentType media type of the file
+ * @param sha256      hex-encoded SHA-256 of the file, or {@code null} when unknown
+ * @param size        size of the file in bytes
+ */
+public record FileDownload(String storedPath, Path localPath, FileChannel channel, String filename, String contentType, String sha256, long size) {
+}
@@ -1,72 +1,275 @@
 package com.canscan.ocrsaas.service;
 
 import com.canscan.ocrsaas.exception.FileStorageException;
-import org.springframework.beans.factory.annotation.Value;
+import com.canscan.ocrsaas.exception.FileTooLargeException;
+import com.canscan.ocrsaas.service.storage.StorageBackend;
+import com.canscan.ocrsaas.service.storage.StorageUpload;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Stores and reads uploaded and generated files by their relative path, whatever {@link StorageBackend} holds them.
+ */
 @Service
+@RequiredArgsConstructor
 public class FileStorageService {
-    private final Path fileStorageLocation;
 
-    public FileStorageService(@Value("${app.file.upload-dir}") String uploadDir) {
-        this.fileStorageLocation = Paths.get(uploadDir)
-                .toAbsolutePath().normalize();
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new FileStorageException("Could not create the directory where the uploaded files will be stored.", ex);
+    private final StorageBackend storageBackend;
+
+    public StoredFile storeFile(MultipartFile file, String subdirectory) {
+        try (InputStream in = file.getInputStream()) {
+            return storeStream(in, file.getOriginalFilename(), subdirectory, Long.MAX_VALUE);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + file.getOriginalFilename() + ". Please try again!", ex);
         }
     }
 
-    public String storeFile(MultipartFile file, String subdirectory) {
+    /**
+     * Writes {@code in} straight to its final location in one pass, hashing the bytes,
+     * sniffing the content type from the first bytes and enforcing {@code maxBytes} as they go.
+     * Nothing is stored when the stream is too large or fails.
+     */
+    public StoredFile storeStream(InputStream in, String fileName, String subdirectory, long maxBytes) {
         // Normalize file name
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
+        String originalFileName = StringUtils.cleanPath(fileName);
+
+        // Check if the file's name contains invalid characters
+        if (originalFileName.contains("..")) {
+            throw new FileStorageException("Filename contains invalid path sequence " + originalFileName);
+        }
+
+        // Generate a unique filename to prevent overwriting
+        String fileExtension = "";
+        if (originalFileName.contains(".")) {
+            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+        }
+        String relativePath = shardedPath(subdirectory, UUID.randomUUID().toString() + fileExtension);
 
         try {
-            // Check if the file's name contains invalid characters
-            if (originalFileName.contains("..")) {
-                throw new FileStorageException("Filename contains invalid path sequence " + originalFileName);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] header = new byte[ContentTypeSniffer.HEADER_LENGTH];
+            int headerLength = 0;
+            long size = 0;
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                 StorageUpload target = storageBackend.openUpload(relativePath)) {
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new FileTooLargeException(maxBytes);
+                    }
+
+                    buffer.flip();
+                    if (headerLength < header.length) {
+                        int count = Math.min(header.length - headerLength, buffer.remaining());
+                        buffer.duplicate().get(header, headerLength, count);
+                        headerLength += count;
+                    }
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                target.commit();
+            }
+
+            String contentType = ContentTypeSniffer.detect(header, headerLength);
+            return new StoredFile(relativePath, HexFormat.of().formatHex(digest.digest()), size, contentType);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + originalFileName + ". Please try again!", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new FileStorageException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Starts writing a file at {@code filePath}; see {@link StorageBackend#openUpload}.
+     */
+    public StorageUpload openUpload(String filePath) throws IOException {
+        return storageBackend.openUpload(filePath);
+    }
+
+    public InputStream openRead(String filePath) throws IOException {
+        return withShardedFallback(filePath, storageBackend::openRead);
+    }
+
+    public InputStream openRead(String filePath, long offset, long length) throws IOException {
+        return withShardedFallback(filePath, key -> storageBackend.openRead(key, offset, length));
+    }
+
+    public long size(String filePath) throws IOException {
+        return withShardedFallback(filePath, storageBackend::size);
+    }
+
+    /**
+     * The file on the local file system, when the backend keeps it there.
+     */
+    public Optional<Path> getLocalPath(String filePath) {
+        Optional<Path> localPath = storageBackend.localPath(filePath);
+        String shardedPath = toShardedPath(filePath);
+        if (localPath.isPresent() && shardedPath != null && !Files.exists(localPath.get())) {
+            return storageBackend.localPath(shardedPath);
+        }
+        return localPath;
+    }
+
+    /**
+     * Makes the file available as a local file for readers that need one, such as PDFBox and ImageIO.
+     * Remote files are downloaded to a temporary file that is removed on close.
+     */
+    public LocalFile openLocalFile(String filePath) throws IOException {
+        Optional<Path> localPath = getLocalPath(filePath);
+        if (localPath.isPresent()) {
+            return new LocalFile(localPath.get(), false);
+        }
+
+        Path temp = Files.createTempFile("ocrsaas-", "-" + Path.of(filePath).getFileName());
+        try (InputStream in = openRead(filePath)) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            return new LocalFile(temp, true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+    }
+
+    /**
+     * A stored file available on the local file system for as long as it is open.
+     */
+    public record LocalFile(Path path, boolean temporary) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            if (temporary) {
+                Files.deleteIfExists(path);
             }
+        }
+    }
 
-            // Create subdirectory if it doesn't exist
-            Path targetLocation = this.fileStorageLocation.resolve(subdirectory);
-            Files.createDirectories(targetLocation);
+    /**
+     * The sharded location of a file, {@code subdirectory/ab/cd/fileName}. The two levels come from
+     * a hash of the file name, so no directory grows past a few thousand entries however many files
+     * are stored. Deterministic, so a file moved from the flat layout can be found again from its old path.
+     */
+    public static String shardedPath(String subdirectory, String fileName) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(fileName.getBytes(StandardCharsets.UTF_8));
+            String hex = HexFormat.of().formatHex(hash, 0, 2);
+            return subdirectory + "/" + hex.substring(0, 2) + "/" + hex.substring(2, 4) + "/" + fileName;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new FileStorageException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Whether a relative path uses the old flat layout ({@code subdirectory/fileName}).
+     */
+    public static boolean isFlatPath(String filePath) {
+        return filePath.indexOf('/') == filePath.lastIndexOf('/');
+    }
+
+    /**
+     * The sharded equivalent of a flat relative path, or {@code null} if the path is not flat.
+     */
+    public static String toShardedPath(String filePath) {
+        int slash = filePath.indexOf('/');
+        if (slash <= 0 || !isFlatPath(filePath)) {
+            return null;
+        }
+        return shardedPath(filePath.substring(0, slash), filePath.substring(slash + 1));
+    }
 
-            // Generate a unique filename to prevent overwriting
-            String fileExtension = "";
-            if (originalFileName.contains(".")) {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+    /**
+     * Runs {@code call} on the file's key. A flat path may still be referenced after the layout
+     * migration moved its file, so when the flat key is missing the call is retried on the sharded key.
+     * Reads of current files cost no extra existence check.
+     */
+    private <T> T withShardedFallback(String filePath, StorageCall<T> call) throws IOException {
+        try {
+            return call.apply(filePath);
+        } catch (NoSuchFileException ex) {
+            String shardedPath = toShardedPath(filePath);
+            if (shardedPath == null) {
+                throw ex;
             }
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
+            return call.apply(shardedPath);
+        }
+    }
 
-            // Copy file to the target location
-            Path filePath = targetLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T apply(String key) throws IOException;
+    }
+
+    /**
+     * Makes the file at flat path {@code flatPath} also available at {@code shardedPath}, with a hard link
+     * where the backend supports it and a copy otherwise. The flat file is left in place.
+     *
+     * @return {@code false} if neither the flat nor the sharded file exists
+     */
+    public boolean linkToShardedPath(String flatPath, String shardedPath) throws IOException {
+        if (storageBackend.exists(shardedPath)) {
+            return true;
+        }
+        if (!storageBackend.exists(flatPath)) {
+            return false;
+        }
+        storageBackend.copy(flatPath, shardedPath);
+        return true;
+    }
 
-            return subdirectory + "/" + uniqueFileName;
+    /**
+     * Removes the flat copy of a file once its rows point at the sharded path. Unlike
+     * {@link #deleteFile}, this never falls back to the sharded location.
+     */
+    public void deleteFlatCopy(String flatPath) {
+        try {
+            storageBackend.delete(flatPath);
         } catch (IOException ex) {
-            throw new FileStorageException("Could not store file " + originalFileName + ". Please try again!", ex);
+            throw new FileStorageException("Could not delete file " + flatPath, ex);
         }
     }
 
-    public Path getFilePath(String filePath) {
-        return this.fileStorageLocation.resolve(filePath);
+    /**
+     * Removes a sharded copy made by {@link #linkToShardedPath} whose row was never switched over to it.
+     */
+    public void deleteShardedCopy(String shardedPath) {
+        try {
+            storageBackend.delete(shardedPath);
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not delete file " + shardedPath, ex);
+        }
     }
 
     public void deleteFile(String filePath) {
         try {
-            Path targetPath = this.fileStorageLocation.resolve(filePath);
-            Files.deleteIfExists(targetPath);
+            // Deleting a missing key is not an error, so one check tells which copy to remove
+            String shardedPath = toShardedPath(filePath);
+            storageBackend.delete(shardedPath != null && !storageBackend.exists(filePath) ? shardedPath : filePath);
         } catch (IOException ex) {
             throw new FileStorageException("Could not delete file " + filePath, ex);
         }
@@ -1,23 +1,40 @@
 package com.canscan.ocrsaas.service;
 
+import com.canscan.ocrsaas.dto.CursorPageDto;
 import com.canscan.ocrsaas.dto.FolderDto;
 import com.canscan.ocrsaas.dto.FolderRequestDto;
+import com.canscan.ocrsaas.dto.FolderTreeDto;
+import com.canscan.ocrsaas.exception.BadRequestException;
 import com.canscan.ocrsaas.exception.ResourceNotFoundException;
 import com.canscan.ocrsaas.model.Folder;
 import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.repository.FileCleanupRepository;
 import com.canscan.ocrsaas.repository.FolderRepository;
+import com.canscan.ocrsaas.repository.FolderTreeRow;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FolderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final FolderRepository folderRepository;
+    private final DocumentRepository documentRepository;
+    private final FileCleanupRepository fileCleanupRepository;
     private final UserService userService;
 
     public List<FolderDto> getRootFolders() {
@@ -26,6 +43,59 @@ public class FolderService {
         return folders.stream().map(this::mapToDto).collect(Collectors.toList());
     }
 
+    /**
+     * The current user's whole folder tree, with document counts per folder and per subtree.
+     */
+    public List<FolderTreeDto> getFolderTree() {
+        User user = userService.getAuthenticatedUser();
+        List<FolderTreeRow> rows = folderRepository.findTreeRowsByUser(user);
+
+        Map<Long, FolderTreeDto> nodes = new HashMap<>(rows.size() * 2);
+        for (FolderTreeRow row : rows) {
+            nodes.put(row.getId(), FolderTreeDto.builder()
+                    .id(row.getId())
+                    .name(row.getName())
+                    .parentId(row.getParentId())
+                    .documentCount(row.getDocumentCount())
+                    .subtreeDocumentCount(row.getDocumentCount())
+                    .build());
+        }
+
+        // Rows are sorted by name, so children are attached in name order
+        List<FolderTreeDto> roots = new ArrayList<>();
+        for (FolderTreeRow row : rows) {
+            FolderTreeDto node = nodes.get(row.getId());
+            FolderTreeDto parent = row.getParentId() != null ? nodes.get(row.getParentId()) : null;
+            if (parent != null) {
+                parent.getChildren().add(node);
+            } else {
+                roots.add(node);
+            }
+        }
+
+        // Roll counts up deepest first, without recursing down a possibly deep tree
+        List<FolderTreeRow> deepestFirst = new ArrayList<>(rows);
+        deepestFirst.sort(Comparator.comparingInt((FolderTreeRow row) -> depth(row.getPath())).reversed());
+        for (FolderTreeRow row : deepestFirst) {
+            FolderTreeDto parent = row.getParentId() != null ? nodes.get(row.getParentId()) : null;
+            if (parent != null) {
+                parent.setSubtreeDocumentCount(parent.getSubtreeDocumentCount() + nodes.get(row.getId()).getSubtreeDocumentCount());
+            }
+        }
+
+        return roots;
+    }
+
+    private static int depth(String path) {
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
     public List<FolderDto> getSubfolders(Long parentId) {
         User user = userService.getAuthenticatedUser();
         Folder parent = folderRepository.findByIdAndUser(parentId, user)
@@ -35,6 +105,43 @@ public class FolderService {
         return folders.stream().map(this::mapToDto).collect(Collectors.toList());
     }
 
+    /**
+     * Lists subfolders by name one keyset page at a time, without a count query.
+     */
+    public CursorPageDto<FolderDto> scrollSubfolders(Long parentId, String cursor, int size) {
+        User user = userService.getAuthenticatedUser();
+        Folder parent = folderRepository.findByIdAndUser(parentId, user)
+                .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", parentId));
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<Folder> folders;
+        if (cursor == null) {
+            folders = folderRepository.findSubfoldersByName(user, parent, limit);
+        } else {
+            String[] position = CursorCodec.decode(cursor, 2);
+            folders = folderRepository.findSubfoldersByNameAfter(user, parent, position[0], Long.valueOf(position[1]), limit);
+        }
+
+        boolean hasMore = folders.size() > pageSize;
+        if (hasMore) {
+            folders = folders.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Folder last = folders.get(folders.size() - 1);
+            nextCursor = CursorCodec.encode(last.getName(), last.getId());
+        }
+
+        return CursorPageDto.<FolderDto>builder()
+                .items(folders.stream().map(this::mapToDto).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Transactional
     public FolderDto createFolder(FolderRequestDto folderRequest) {
         User user = userService.getAuthenticatedUser();
@@ -56,35 +163,59 @@ public class FolderService {
     @Transactional
     public FolderDto updateFolder(Long id, FolderRequestDto folderRequest) {
         User user = userService.getAuthenticatedUser();
-        Folder folder = folderRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", id));
+        Long parentId = folderRequest.getParentId();
+
+        // Both rows stay locked until commit, so a concurrent move cannot change either path between
+        // the cycle check and movePaths: two moves that would form a cycle run one after the other
+        Map<Long, Folder> locked = folderRepository.findAllByUserForUpdate(user.getId(),
+                        parentId != null ? List.of(id, parentId) : List.of(id)).stream()
+                .collect(Collectors.toMap(Folder::getId, Function.identity()));
+        Folder folder = locked.get(id);
+        if (folder == null) {
+            throw new ResourceNotFoundException("Folder", "id", id);
+        }
 
         folder.setName(folderRequest.getName());
 
-        if (folderRequest.getParentId() != null) {
-            // Prevent circular references
-            if (folderRequest.getParentId().equals(id)) {
-                throw new IllegalArgumentException("A folder cannot be its own parent");
+        Folder parent = null;
+        if (parentId != null) {
+            parent = locked.get(parentId);
+            if (parent == null) {
+                throw new ResourceNotFoundException("Folder", "id", parentId);
             }
 
-            Folder parent = folderRepository.findByIdAndUser(folderRequest.getParentId(), user)
-                    .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", folderRequest.getParentId()));
+            // Prevent circular references: the new parent cannot be the folder itself or one of its descendants
+            if (parent.getPath().startsWith(folder.getPath())) {
+                throw new BadRequestException("A folder cannot be moved into itself or one of its subfolders");
+            }
+        }
+
+        Long currentParentId = folder.getParent() != null ? folder.getParent().getId() : null;
+        if (!Objects.equals(currentParentId, parentId)) {
+            String newPath = (parent != null ? parent.getPath() : "/") + folder.getId() + "/";
             folder.setParent(parent);
+            folder = folderRepository.save(folder);
+            folderRepository.movePaths(user.getId(), folder.getPath(), newPath);
         } else {
-            folder.setParent(null);
+            folder = folderRepository.save(folder);
         }
 
-        folder = folderRepository.save(folder);
         return mapToDto(folder);
     }
 
+    /**
+     * Deletes a folder, its subfolders and their documents with a few set-based statements.
+     * The stored files are recorded in the cleanup table and removed later by {@link FileCleanupService}.
+     */
     @Transactional
     public void deleteFolder(Long id) {
         User user = userService.getAuthenticatedUser();
         Folder folder = folderRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new ResourceNotFoundException("Folder", "id", id));
 
-        folderRepository.delete(folder);
+        fileCleanupRepository.enqueueFolderSubtree(user.getId(), folder.getPath());
+        documentRepository.deleteByFolderSubtree(user.getId(), folder.getPath());
+        folderRepository.deleteSubtree(user.getId(), folder.getPath());
     }
 
     @Transactional
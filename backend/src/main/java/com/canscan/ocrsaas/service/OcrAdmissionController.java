@@ -0,0 +1,118 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.OcrOverloadedException;
+import com.canscan.ocrsaas.repository.OcrJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of the OCR queue. Uploads are refused with 429 and a
+ * Retry-After once the outstanding jobs of the whole cluster reach
+ * {@code app.ocr.admission.max-queue-depth}, instead of queueing work no node will reach soon.
+ * <p>
+ * The depth is read from the job table at most once per {@code app.ocr.admission.refresh-ms};
+ * admitted files are added to the cached value in between, so a burst cannot overshoot the limit
+ * while the count is stale. How many engines run at once is bounded separately, per node, by
+ * {@link com.canscan.ocrsaas.service.ocr.OcrEnginePool}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OcrAdmissionController {
+
+    private final OcrJobRepository ocrJobRepository;
+    private final MeterRegistry meterRegistry;
+
+    // 0 disables admission control
+    @Value("${app.ocr.admission.max-queue-depth:5000}")
+    private long maxQueueDepth;
+
+    @Value("${app.ocr.admission.refresh-ms:1000}")
+    private long refreshMs;
+
+    @Value("${app.ocr.admission.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private final AtomicLong depth = new AtomicLong();
+    private volatile long refreshedAt;
+    private Counter admitted;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("ocr.admission.queue.depth", depth, AtomicLong::get)
+                .description("Outstanding OCR jobs as last seen by admission control")
+                .register(meterRegistry);
+        admitted = Counter.builder("ocr.admission.requests").tag("result", "admitted").register(meterRegistry);
+        rejected = Counter.builder("ocr.admission.requests").tag("result", "rejected").register(meterRegistry);
+    }
+
+    /**
+     * Admits {@code files} new OCR jobs or throws {@link OcrOverloadedException}.
+     * Concurrent callers cannot both take the last free places: the check and the reservation are one CAS.
+     */
+    public void admit(int files) {
+        if (maxQueueDepth <= 0) {
+            return;
+        }
+
+        refreshIfStale();
+        long current;
+        do {
+            current = depth.get();
+            if (current + files > maxQueueDepth) {
+                rejected.increment();
+                throw new OcrOverloadedException(retryAfterSeconds);
+            }
+        } while (!depth.compareAndSet(current, current + files));
+        admitted.increment();
+    }
+
+    /**
+     * Gives back places admitted for files that were not queued after all. The next refresh
+     * would correct the depth anyway; this frees the places before it.
+     */
+    public void release(int files) {
+        if (maxQueueDepth <= 0) {
+            return;
+        }
+        depth.updateAndGet(current -> Math.max(0, current - files));
+    }
+
+    /**
+     * Throws {@link OcrOverloadedException} if the queue is already full, without admitting anything.
+     * Lets a request fail before it reads and stores its files; they are admitted once stored.
+     */
+    public void checkCapacity() {
+        if (maxQueueDepth <= 0) {
+            return;
+        }
+
+        refreshIfStale();
+        if (depth.get() >= maxQueueDepth) {
+            rejected.increment();
+            throw new OcrOverloadedException(retryAfterSeconds);
+        }
+    }
+
+    private void refreshIfStale() {
+        long now = System.currentTimeMillis();
+        if (now - refreshedAt < refreshMs) {
+            return;
+        }
+        synchronized (this) {
+            // Only one request thread pays for the count query
+            if (now - refreshedAt < refreshMs) {
+                return;
+            }
+            depth.set(ocrJobRepository.countOutstanding());
+            refreshedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.canscan.ocrsaas.service;
+
+/**
+ * One attempt at a job, as claimed by a worker. Every write made on behalf of the attempt is
+ * conditional on the job still being RUNNING with this attempt number and this worker, so a worker
+ * whose job was recovered and handed to another attempt can no longer change the job or its document.
+ *
+ * @param jobId      the claimed job
+ * @param documentId the document the job processes
+ * @param attempt    the job's attempt count right after the claim
+ * @param workerId   the node that claimed it
+ */
+public record OcrJobAttempt(Long jobId, Long documentId, int attempt, String workerId) {
+}
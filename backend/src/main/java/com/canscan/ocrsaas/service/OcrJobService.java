@@ -0,0 +1,287 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.model.Document;
+import com.canscan.ocrsaas.model.OcrJob;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.repository.OcrJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Persistent OCR job queue. Every method runs in its own short transaction so
+ * no database connection is held while a document is being processed.
+ * <p>
+ * Jobs are claimed in weighted fair order rather than FIFO. Each user and priority
+ * class is a flow, and every job gets a virtual finish time one cost unit after the
+ * previous job of its flow. Claiming by smallest virtual time interleaves the flows,
+ * so one user's bulk import cannot hold back another user's single upload.
+ * <p>
+ * The system virtual time is the tag of the latest claimed job (self-clocked fair queuing).
+ * It is persisted and only moves forward, so a drained queue does not reset it and a flow
+ * still running does not fall behind flows that start afresh.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OcrJobService {
+
+    private final OcrJobRepository ocrJobRepository;
+    private final DocumentRepository documentRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ocr.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.ocr.jobs.backoff-ms:5000}")
+    private long backoffMs;
+
+    @Value("${app.ocr.jobs.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${app.ocr.jobs.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${app.ocr.scheduler.weight.interactive:4}")
+    private double interactiveWeight;
+
+    @Value("${app.ocr.scheduler.weight.bulk:1}")
+    private double bulkWeight;
+
+    @Transactional
+    public OcrJob enqueue(Document document, OcrJob.Priority priority) {
+        double virtualTime = startTag(document.getUser().getId(), priority) + cost(priority);
+        return ocrJobRepository.save(newJob(document, priority, virtualTime, LocalDateTime.now()));
+    }
+
+    /**
+     * Queues OCR for several documents of one user; the inserts go to the database as one JDBC batch.
+     */
+    @Transactional
+    public void enqueueAll(List<Document> documents, OcrJob.Priority priority) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        double virtualTime = startTag(documents.get(0).getUser().getId(), priority);
+
+        List<OcrJob> jobs = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            virtualTime += cost(priority);
+            jobs.add(newJob(document, priority, virtualTime, now));
+        }
+        ocrJobRepository.saveAll(jobs);
+    }
+
+    /**
+     * Start tag of the next job of a flow (user and priority class): it continues after the flow's
+     * own queued work, but never before the system virtual time, so a flow that was idle cannot
+     * claim credit for the time it had nothing queued. Locks the system virtual time until the
+     * caller's transaction commits, so two enqueues of one flow cannot read the same tag.
+     */
+    private double startTag(Long userId, OcrJob.Priority priority) {
+        double systemTime = ocrJobRepository.lockSystemVirtualTime();
+        Double flowTime = ocrJobRepository.findFlowVirtualTime(userId, priority);
+        return flowTime != null ? Math.max(systemTime, flowTime) : systemTime;
+    }
+
+    // Every document costs one unit; a heavier class advances its flow's clock more slowly
+    private double cost(OcrJob.Priority priority) {
+        return 1.0 / (priority == OcrJob.Priority.INTERACTIVE ? interactiveWeight : bulkWeight);
+    }
+
+    private OcrJob newJob(Document document, OcrJob.Priority priority, double virtualTime, LocalDateTime now) {
+        return OcrJob.builder()
+                .document(document)
+                .user(document.getUser())
+                .status(OcrJob.Status.QUEUED)
+                .priority(priority)
+                .virtualTime(virtualTime)
+                .nextRunAt(now)
+                .build();
+    }
+
+    @Transactional
+    public List<OcrJob> claimJobs(String workerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OcrJob> jobs = ocrJobRepository.findRunnableForUpdate(now, limit);
+
+        for (OcrJob job : jobs) {
+            if (job.getAttempts() == 0) {
+                meterRegistry.timer("ocr.job.wait", "priority", job.getPriority().name())
+                        .record(Duration.between(job.getCreatedAt(), now));
+            }
+            job.setStatus(OcrJob.Status.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLockedBy(workerId);
+        }
+        if (!jobs.isEmpty()) {
+            // Lock and lease times come from the database clock, like every check against them
+            ocrJobRepository.startLeases(jobs.stream().map(OcrJob::getId).toList(), leaseMs);
+            // Jobs are claimed in tag order, so the last one is the latest in service
+            ocrJobRepository.advanceSystemVirtualTime(jobs.get(jobs.size() - 1).getVirtualTime());
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Renews the leases of the jobs this worker is still running.
+     */
+    public void extendLeases(String workerId, Collection<Long> jobIds) {
+        ocrJobRepository.extendLeases(workerId, jobIds, leaseMs);
+    }
+
+    /**
+     * Of the given jobs, the ones cancelled since they were claimed.
+     */
+    public List<Long> findCancelled(Collection<Long> jobIds) {
+        return ocrJobRepository.findCancelledIds(jobIds);
+    }
+
+    /**
+     * Cancels the queued or running job of a document. A running job is only flagged here;
+     * its worker sees the flag on its next heartbeat and stops between pages.
+     */
+    @Transactional
+    public int cancelForDocument(Long documentId) {
+        return ocrJobRepository.cancelByDocument(documentId, LocalDateTime.now());
+    }
+
+    /**
+     * Completes the given attempt of a job. A no-op when the job was cancelled or, after its
+     * lease expired, handed to another attempt: the check and the update are one conditional
+     * statement, so a recovery between them cannot be overwritten.
+     */
+    @Transactional
+    public void complete(OcrJobAttempt attempt) {
+        LocalDateTime now = LocalDateTime.now();
+        if (ocrJobRepository.endAttempt(attempt.jobId(), attempt.attempt(), attempt.workerId(),
+                OcrJob.Status.DONE, now, null, now) == 0) {
+            log.info("OCR job {} attempt {} finished after it was cancelled or taken over", attempt.jobId(), attempt.attempt());
+        }
+    }
+
+    /**
+     * Re-queues the job with exponential backoff when the failure is retryable and
+     * attempts remain; otherwise marks both the job and its document as failed.
+     * Like {@link #complete}, ignores attempts that are no longer current, and then
+     * leaves the document alone too. A document whose text was already committed keeps it.
+     */
+    @Transactional
+    public void fail(OcrJobAttempt attempt, Exception error, boolean retryable) {
+        Long jobId = attempt.jobId();
+        Long documentId = attempt.documentId();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (retryable && attempt.attempt() < maxAttempts) {
+            long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempt.attempt() - 1, 20));
+            if (ocrJobRepository.endAttempt(jobId, attempt.attempt(), attempt.workerId(), OcrJob.Status.QUEUED,
+                    now.plusNanos(delay * 1_000_000), error.getMessage(), now) == 0) {
+                log.info("OCR job {} attempt {} failed after it was cancelled or taken over", jobId, attempt.attempt(), error);
+                return;
+            }
+            documentRepository.updateOpenStatus(documentId, Document.Status.PENDING, now);
+            log.warn("OCR job {} for document {} failed (attempt {}), retrying in {} ms",
+                    jobId, documentId, attempt.attempt(), delay, error);
+        } else {
+            if (ocrJobRepository.endAttempt(jobId, attempt.attempt(), attempt.workerId(), OcrJob.Status.FAILED,
+                    now, error.getMessage(), now) == 0) {
+                log.info("OCR job {} attempt {} failed after it was cancelled or taken over", jobId, attempt.attempt(), error);
+                return;
+            }
+            documentRepository.updateOpenStatus(documentId, Document.Status.FAILED, now);
+            log.error("OCR job {} for document {} failed after {} attempt(s)",
+                    jobId, documentId, attempt.attempt(), error);
+        }
+    }
+
+    /**
+     * Returns running jobs whose lease expired to the queue, or fails them once they are out of
+     * attempts. The worker holding them crashed or stalled; if it ever finishes, its attempt is stale.
+     *
+     * @return the number of jobs recovered, at most {@code limit}
+     */
+    @Transactional
+    public int recoverExpiredLeases(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OcrJob> jobs = ocrJobRepository.findExpiredLeasesForUpdate(limit);
+        jobs.forEach(job -> recover(job, "Lease expired on worker " + job.getLockedBy(), now));
+        return jobs.size();
+    }
+
+    /**
+     * Like {@link #recoverExpiredLeases}, for running jobs of nodes without a heartbeat for more than
+     * {@code nodeTimeoutMs}. Catches a dead node well before the leases of its jobs run out.
+     */
+    @Transactional
+    public int recoverFromDeadNodes(long nodeTimeoutMs, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OcrJob> jobs = ocrJobRepository.findOnDeadNodesForUpdate(nodeTimeoutMs, limit);
+        jobs.forEach(job -> recover(job, "Worker node " + job.getLockedBy() + " stopped sending heartbeats", now));
+        return jobs.size();
+    }
+
+    private void recover(OcrJob job, String reason, LocalDateTime now) {
+        Long documentId = job.getDocument().getId();
+        job.setLastError(reason);
+        job.setLockedBy(null);
+        job.setLockedAt(null);
+        job.setLeaseExpiresAt(null);
+
+        if (job.getAttempts() < maxAttempts) {
+            job.setStatus(OcrJob.Status.QUEUED);
+            job.setNextRunAt(now);
+            documentRepository.updateOpenStatus(documentId, Document.Status.PENDING, now);
+            log.warn("OCR job {} for document {} re-queued (attempt {}): {}", job.getId(), documentId, job.getAttempts(), reason);
+        } else {
+            job.setStatus(OcrJob.Status.FAILED);
+            documentRepository.updateOpenStatus(documentId, Document.Status.FAILED, now);
+            log.error("OCR job {} for document {} failed after {} attempt(s): {}", job.getId(), documentId, job.getAttempts(), reason);
+        }
+    }
+
+    /**
+     * Hands a running job straight back to the queue, for a node that shuts down before the job
+     * finished. The attempt still counts, so it stays fenced off should the old run ever report back.
+     * A no-op if the attempt is no longer current.
+     */
+    @Transactional
+    public void release(OcrJobAttempt attempt) {
+        LocalDateTime now = LocalDateTime.now();
+        if (ocrJobRepository.endAttempt(attempt.jobId(), attempt.attempt(), attempt.workerId(), OcrJob.Status.QUEUED,
+                now, "Released by node " + attempt.workerId() + " on shutdown", now) > 0) {
+            documentRepository.updateOpenStatus(attempt.documentId(), Document.Status.PENDING, now);
+        }
+    }
+
+    /**
+     * Ends the given attempt of a job whose document is no longer pending, because it was
+     * cancelled, completed or deleted meanwhile. A no-op if the attempt is no longer current.
+     */
+    @Transactional
+    public void cancel(OcrJobAttempt attempt) {
+        LocalDateTime now = LocalDateTime.now();
+        ocrJobRepository.endAttempt(attempt.jobId(), attempt.attempt(), attempt.workerId(), OcrJob.Status.CANCELLED,
+                now, "Cancelled", now);
+    }
+
+    /**
+     * Fails documents stuck in PROCESSING for longer than a lease with no job left to finish them.
+     */
+    @Transactional
+    public int failStaleDocuments() {
+        LocalDateTime now = LocalDateTime.now();
+        return documentRepository.failStaleProcessing(now.minusNanos(leaseMs * 1_000_000), now);
+    }
+
+}
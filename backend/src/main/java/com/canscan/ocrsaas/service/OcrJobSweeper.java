@@ -0,0 +1,61 @@
+package com.canscan.ocrsaas.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recovers OCR work left behind by crashed or stalled workers, at startup and then periodically:
+ * running jobs of dead nodes or with an expired lease go back to the queue, and documents stuck
+ * in PROCESSING without a job are failed. Runs on every node, whatever its role; concurrent
+ * sweeps skip each other's rows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OcrJobSweeper {
+
+    private final OcrJobService ocrJobService;
+    private final OcrNodeService ocrNodeService;
+
+    @Value("${app.ocr.jobs.sweep-batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.ocr.nodes.timeout-ms:30000}")
+    private long nodeTimeoutMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        sweep();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ocr.jobs.sweep-interval-ms:60000}",
+            initialDelayString = "${app.ocr.jobs.sweep-interval-ms:60000}")
+    public void sweep() {
+        // The cutoffs are computed by the database, against the heartbeats it stamped itself
+        int fromDeadNodes = 0;
+        int claimed;
+        do {
+            claimed = ocrJobService.recoverFromDeadNodes(nodeTimeoutMs, batchSize);
+            fromDeadNodes += claimed;
+        } while (claimed == batchSize);
+        int deadNodes = ocrNodeService.removeDead(nodeTimeoutMs);
+
+        int expired = 0;
+        do {
+            claimed = ocrJobService.recoverExpiredLeases(batchSize);
+            expired += claimed;
+        } while (claimed == batchSize);
+
+        int failed = ocrJobService.failStaleDocuments();
+
+        if (fromDeadNodes > 0 || deadNodes > 0 || expired > 0 || failed > 0) {
+            log.info("Recovered {} OCR job(s) from {} dead node(s) and {} with an expired lease, failed {} stale document(s)",
+                    fromDeadNodes, deadNodes, expired, failed);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.config.ConditionalOnWorkerRole;
+import com.canscan.ocrsaas.exception.OcrCancelledException;
+import com.canscan.ocrsaas.exception.OcrProcessingException;
+import com.canscan.ocrsaas.exception.OcrTimeoutException;
+import com.canscan.ocrsaas.model.OcrJob;
+import com.canscan.ocrsaas.model.OcrNode;
+import com.canscan.ocrsaas.service.ocr.OcrTask;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the OCR job queue and runs claimed jobs on a dedicated worker executor.
+ * Jobs are only claimed when a worker slot is free, so claimed jobs never sit
+ * in memory waiting for a thread.
+ * <p>
+ * Every job runs under a document deadline. A heartbeat renews the leases of running
+ * jobs and passes on cancellations; a watchdog gives up on jobs that overrun their
+ * deadline anyway, frees their slot for a new thread and hands the job back to the queue.
+ * Both run on a scheduler of their own, so a slow poll or sweep on the shared Spring
+ * scheduler can never delay a lease renewal past its expiry.
+ * <p>
+ * Only runs on nodes with the worker role. The node registers itself in the node table and
+ * sends a heartbeat with every lease renewal, so other nodes can re-queue its jobs if it dies.
+ * On graceful shutdown it stops claiming, lets running jobs finish for up to
+ * {@code app.ocr.worker.drain-timeout-ms}, and hands whatever is left back to the queue.
+ */
+@Component
+@ConditionalOnWorkerRole
+@RequiredArgsConstructor
+@Slf4j
+public class OcrJobWorker implements SmartLifecycle {
+
+    private static final long DRAIN_POLL_MS = 200;
+
+    private final OcrJobService ocrJobService;
+    private final OcrNodeService ocrNodeService;
+    private final DocumentService documentService;
+    private final MeterRegistry meterRegistry;
+
+    // Defaults to pid@host, which is unique per process
+    @Value("${app.node-id:}")
+    private String nodeId;
+
+    @Value("${app.ocr.worker.threads:2}")
+    private int threads;
+
+    @Value("${app.ocr.timeout.document-ms:900000}")
+    private long documentTimeoutMs;
+
+    @Value("${app.ocr.watchdog.grace-ms:60000}")
+    private long watchdogGraceMs;
+
+    @Value("${app.ocr.worker.heartbeat-interval-ms:5000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${app.ocr.watchdog.interval-ms:10000}")
+    private long watchdogIntervalMs;
+
+    @Value("${app.ocr.worker.drain-timeout-ms:120000}")
+    private long drainTimeoutMs;
+
+    private String workerId;
+    private final Map<Long, RunningJob> running = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private ThreadPoolTaskScheduler leaseScheduler;
+    private Counter stalledJobs;
+    private volatile boolean registered;
+    private volatile boolean accepting;
+
+    /**
+     * A claimed job and the thread running it. The job leaves {@link #running} exactly once,
+     * either when it finishes or when the watchdog gives up on it.
+     */
+    private static final class RunningJob {
+        private final Long jobId;
+        private final OcrJobAttempt attempt;
+        private final OcrTask task;
+        private final long startedNanos = System.nanoTime();
+        private volatile Thread thread;
+
+        private RunningJob(OcrJobAttempt attempt, OcrTask task) {
+            this.jobId = attempt.jobId();
+            this.attempt = attempt;
+            this.task = task;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        workerId = StringUtils.hasText(nodeId) ? nodeId : ManagementFactory.getRuntimeMXBean().getName();
+        // No fixed thread count: the running map bounds the jobs, and a thread the watchdog
+        // gave up on must not keep the next job from getting one
+        executor = new ThreadPoolExecutor(threads, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("ocr-worker-"));
+        stalledJobs = Counter.builder("ocr.worker.stalled")
+                .description("OCR jobs abandoned by the watchdog after overrunning their deadline")
+                .register(meterRegistry);
+        // Heartbeat and watchdog each get a thread, apart from the shared @Scheduled pool
+        leaseScheduler = new ThreadPoolTaskScheduler();
+        leaseScheduler.setPoolSize(2);
+        leaseScheduler.setThreadNamePrefix("ocr-lease-");
+        leaseScheduler.initialize();
+        log.info("OCR worker {} started with {} thread(s)", workerId, threads);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ocr.worker.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        if (!accepting) {
+            return;
+        }
+        int free = threads - running.size();
+        if (free <= 0) {
+            return;
+        }
+
+        List<OcrJob> jobs = ocrJobService.claimJobs(workerId, free);
+        for (OcrJob job : jobs) {
+            OcrJobAttempt attempt = new OcrJobAttempt(job.getId(), job.getDocument().getId(), job.getAttempts(), workerId);
+            RunningJob runningJob = new RunningJob(attempt, OcrTask.withTimeout(documentTimeoutMs));
+            running.put(runningJob.jobId, runningJob);
+            executor.execute(() -> run(runningJob));
+        }
+    }
+
+    private void run(RunningJob job) {
+        job.thread = Thread.currentThread();
+        try {
+            documentService.processOcr(job.attempt.documentId(), job.attempt, job.task);
+            ocrJobService.complete(job.attempt);
+        } catch (OcrCancelledException e) {
+            ocrJobService.cancel(job.attempt);
+            log.info("OCR job {} for document {} was cancelled", job.jobId, job.attempt.documentId());
+        } catch (OcrTimeoutException e) {
+            // The same pages would overrun again
+            ocrJobService.fail(job.attempt, e, false);
+        } catch (OcrProcessingException e) {
+            ocrJobService.fail(job.attempt, e, true);
+        } catch (Exception e) {
+            ocrJobService.fail(job.attempt, e, false);
+        } finally {
+            job.thread = null;
+            running.remove(job.jobId, job);
+        }
+    }
+
+    /**
+     * Reports this node as alive, renews the leases of the running jobs and cancels the ones
+     * cancelled through the API.
+     */
+    void heartbeat() {
+        if (!registered) {
+            return;
+        }
+        List<Long> jobIds = List.copyOf(running.keySet());
+        ocrNodeService.heartbeat(workerId, accepting ? OcrNode.Status.ACTIVE : OcrNode.Status.DRAINING,
+                threads, jobIds.size());
+        if (jobIds.isEmpty()) {
+            return;
+        }
+
+        ocrJobService.extendLeases(workerId, jobIds);
+        for (Long jobId : ocrJobService.findCancelled(jobIds)) {
+            RunningJob job = running.get(jobId);
+            if (job != null) {
+                job.task.cancel();
+            }
+        }
+    }
+
+    /**
+     * Gives up on jobs still running well past their document deadline. Deadlines are normally
+     * enforced inside the OCR itself, so such a job is stuck elsewhere, for example on storage I/O.
+     * Its thread is interrupted and left behind, its slot is freed, and the job is failed as a
+     * retryable attempt; should the thread ever finish, its stale attempt is ignored.
+     */
+    void watchdog() {
+        long stallNanos = TimeUnit.MILLISECONDS.toNanos(documentTimeoutMs + watchdogGraceMs);
+        long now = System.nanoTime();
+
+        for (RunningJob job : running.values()) {
+            if (now - job.startedNanos < stallNanos || !running.remove(job.jobId, job)) {
+                continue;
+            }
+
+            stalledJobs.increment();
+            job.task.cancel();
+            Thread thread = job.thread;
+            if (thread != null) {
+                log.error("OCR job {} stalled in {}, abandoning it", job.jobId, thread.getName());
+                thread.interrupt();
+            }
+            ocrJobService.fail(job.attempt,
+                    new OcrTimeoutException("Worker stalled for more than " + (documentTimeoutMs + watchdogGraceMs) + " ms"), true);
+        }
+    }
+
+    @Override
+    public void start() {
+        ocrNodeService.heartbeat(workerId, OcrNode.Status.ACTIVE, threads, 0);
+        registered = true;
+        accepting = true;
+        leaseScheduler.scheduleWithFixedDelay(this::heartbeat, Duration.ofMillis(heartbeatIntervalMs));
+        leaseScheduler.scheduleWithFixedDelay(this::watchdog, Duration.ofMillis(watchdogIntervalMs));
+    }
+
+    /**
+     * Drains the node. Blocks shutdown until the running jobs finish or the drain timeout passes,
+     * so keep {@code app.ocr.worker.drain-timeout-ms} below the grace period of the process manager.
+     */
+    @Override
+    public void stop() {
+        // Waits for a poll in progress, so every job it claims is drained too
+        synchronized (this) {
+            accepting = false;
+        }
+        if (!running.isEmpty()) {
+            log.info("Draining OCR worker {}: waiting up to {} ms for {} running job(s)", workerId, drainTimeoutMs, running.size());
+        }
+
+        // The lease scheduler is not managed by the context, so heartbeats keep the leases alive during the drain
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        while (!running.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(DRAIN_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (RunningJob job : running.values()) {
+            if (running.remove(job.jobId, job)) {
+                job.task.cancel();
+                ocrJobService.release(job.attempt);
+                log.warn("OCR job {} did not finish before shutdown, handed back to the queue", job.jobId);
+            }
+        }
+
+        registered = false;
+        leaseScheduler.shutdown();
+        ocrNodeService.remove(workerId);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return registered;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        leaseScheduler.shutdown();
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,50 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.dto.OcrNodeDto;
+import com.canscan.ocrsaas.model.OcrNode;
+import com.canscan.ocrsaas.repository.OcrNodeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Registry of OCR worker nodes. Workers report in with heartbeats; a node whose last heartbeat is
+ * older than {@code app.ocr.nodes.timeout-ms} is considered dead and its jobs are re-queued.
+ */
+@Service
+@RequiredArgsConstructor
+public class OcrNodeService {
+
+    private final OcrNodeRepository ocrNodeRepository;
+
+    public void heartbeat(String nodeId, OcrNode.Status status, int threads, int runningJobs) {
+        ocrNodeRepository.heartbeat(nodeId, status.name(), threads, runningJobs);
+    }
+
+    public void remove(String nodeId) {
+        ocrNodeRepository.deleteById(nodeId);
+    }
+
+    /**
+     * Removes the nodes without a heartbeat for more than {@code timeoutMs}, measured on the database clock.
+     */
+    @Transactional
+    public int removeDead(long timeoutMs) {
+        return ocrNodeRepository.deleteDead(timeoutMs);
+    }
+
+    public List<OcrNodeDto> getNodes() {
+        return ocrNodeRepository.findAllByOrderByStartedAt().stream()
+                .map(node -> OcrNodeDto.builder()
+                        .id(node.getId())
+                        .status(node.getStatus().name())
+                        .threads(node.getThreads())
+                        .runningJobs(node.getRunningJobs())
+                        .startedAt(node.getStartedAt())
+                        .heartbeatAt(node.getHeartbeatAt())
+                        .build())
+                .toList();
+    }
+}
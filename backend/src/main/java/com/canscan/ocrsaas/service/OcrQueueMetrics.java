@@ -0,0 +1,81 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.dto.OcrQueueTenantDto;
+import com.canscan.ocrsaas.repository.OcrJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Per-tenant view of the OCR queue: depth and oldest wait for each user and priority class.
+ * <p>
+ * Published as {@code ocr.queue.tenant.depth} and {@code ocr.queue.tenant.oldest-wait} gauges,
+ * tagged with the user id, for the {@code app.ocr.scheduler.metrics.max-tenants} tenants with
+ * the deepest queues, which keeps the number of series bounded. Time from upload to a worker
+ * picking the job up is recorded separately by the {@code ocr.job.wait} timer.
+ */
+@Component
+@RequiredArgsConstructor
+public class OcrQueueMetrics {
+
+    private final OcrJobRepository ocrJobRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ocr.scheduler.metrics.max-tenants:20}")
+    private int maxTenants;
+
+    private MultiGauge depthGauge;
+    private MultiGauge oldestWaitGauge;
+
+    @PostConstruct
+    public void init() {
+        depthGauge = MultiGauge.builder("ocr.queue.tenant.depth")
+                .description("Queued OCR jobs per tenant and priority class")
+                .register(meterRegistry);
+        oldestWaitGauge = MultiGauge.builder("ocr.queue.tenant.oldest-wait")
+                .description("Age of the oldest queued OCR job per tenant and priority class")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queued work per tenant, deepest first.
+     */
+    public List<OcrQueueTenantDto> getQueueByTenant() {
+        LocalDateTime now = LocalDateTime.now();
+        return ocrJobRepository.findQueuedByTenant().stream()
+                .map(row -> OcrQueueTenantDto.builder()
+                        .userId(row.getUserId())
+                        .priority(row.getPriority().name())
+                        .depth(row.getDepth())
+                        .oldestWaitSeconds(Math.max(0, Duration.between(row.getOldestCreatedAt(), now).toSeconds()))
+                        .build())
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ocr.scheduler.metrics.interval-ms:10000}")
+    public void refresh() {
+        List<OcrQueueTenantDto> tenants = getQueueByTenant().stream().limit(maxTenants).toList();
+
+        // Overwriting drops the series of tenants whose queue has drained
+        depthGauge.register(tenants.stream()
+                .map(tenant -> MultiGauge.Row.of(tags(tenant), tenant.getDepth()))
+                .toList(), true);
+        oldestWaitGauge.register(tenants.stream()
+                .map(tenant -> MultiGauge.Row.of(tags(tenant), tenant.getOldestWaitSeconds()))
+                .toList(), true);
+    }
+
+    private static Tags tags(OcrQueueTenantDto tenant) {
+        return Tags.of("tenant", String.valueOf(tenant.getUserId()), "priority", tenant.getPriority());
+    }
+}
@@ -1,45 +1,198 @@
 package com.canscan.ocrsaas.service;
 
 import com.canscan.ocrsaas.exception.OcrProcessingException;
+import com.canscan.ocrsaas.service.ocr.OcrEnginePool;
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import com.canscan.ocrsaas.service.ocr.OcrTask;
+import com.canscan.ocrsaas.service.ocr.OcrWord;
+import com.canscan.ocrsaas.service.ocr.PageReader;
+import com.canscan.ocrsaas.service.ocr.preprocess.ImagePreprocessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.nio.file.Path;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OcrService {
+
+    /**
+     * Separates the text of consecutive pages in the extracted text, as Tesseract's own text renderer does.
+     */
+    public static final String PAGE_SEPARATOR = "\f";
+
     private final FileStorageService fileStorageService;
+    private final OcrEnginePool ocrEnginePool;
+    private final ImagePreprocessor imagePreprocessor;
 
-    @Value("${app.ocr.data-path:./tessdata}")
-    private String tessdataPath;
+    @Value("${app.ocr.pages.max-parallel-per-document:4}")
+    private int maxParallelPerDocument;
 
-    public String performOcr(String filePath) {
-        try {
-            Path path = fileStorageService.getFilePath(filePath);
-            File imageFile = path.toFile();
+    @Value("${app.ocr.pages.pdf-dpi:300}")
+    private int pdfDpi;
+
+    private ExecutorService pageExecutor;
+    private String settingsKey;
 
-            log.info("Performing OCR on file: {}", imageFile.getAbsolutePath());
+    @PostConstruct
+    public void init() {
+        settingsKey = sha256("language=" + ocrEnginePool.getLanguage()
+                + ";pdf-dpi=" + pdfDpi
+                + ";preprocess=" + imagePreprocessor.describe());
 
-            ITesseract tesseract = new Tesseract();
-            tesseract.setDatapath(tessdataPath);
-            tesseract.setLanguage("eng"); // Set language to English
+        // One thread per pooled engine: more threads would only queue on the pool
+        int threads = ocrEnginePool.getSize();
+        pageExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("ocr-page-"));
+    }
+
+    /**
+     * Identifies everything that affects the extracted text, so results are only
+     * reused between documents processed with the same settings.
+     */
+    public String getSettingsKey() {
+        return settingsKey;
+    }
 
-            // You can set other Tesseract parameters here
-            // tesseract.setPageSegMode(1);
-            // tesseract.setOcrEngineMode(1);
+    /**
+     * Recognizes every page of a stored file, stopping with {@link com.canscan.ocrsaas.exception.OcrTimeoutException}
+     * or {@link com.canscan.ocrsaas.exception.OcrCancelledException} when {@code task} runs out of time or is cancelled.
+     */
+    public String performOcr(String filePath, OcrTask task) {
+        try (FileStorageService.LocalFile localFile = fileStorageService.openLocalFile(filePath);
+             PageReader reader = PageReader.open(localFile.path().toFile(), pdfDpi)) {
+            int pageCount = reader.getPageCount();
+            log.info("Performing OCR on file: {} ({} page(s))", filePath, pageCount);
 
-            return tesseract.doOCR(imageFile);
+            if (pageCount == 1) {
+                return recognize(reader, 0, task);
+            }
+            return String.join(PAGE_SEPARATOR, recognizeInParallel(reader, pageCount, task));
 
-        } catch (TesseractException e) {
+        } catch (IOException e) {
             throw new OcrProcessingException("Failed to process OCR for file: " + filePath, e);
         }
     }
+
+    /**
+     * Receives each page of a file with its recognized words.
+     */
+    @FunctionalInterface
+    public interface PageWordsConsumer {
+        void accept(OcrPage page, List<OcrWord> words) throws IOException;
+    }
+
+    /**
+     * Recognizes the words of a stored file page by page, in page order, with their positions
+     * on the page as read. Pages are not preprocessed, so the boxes line up with the original raster.
+     * Stops like {@link #performOcr} when {@code task} runs out of time or is cancelled.
+     */
+    public void recognizeWords(String filePath, OcrTask task, PageWordsConsumer consumer) throws IOException {
+        try (FileStorageService.LocalFile localFile = fileStorageService.openLocalFile(filePath);
+             PageReader reader = PageReader.open(localFile.path().toFile(), pdfDpi)) {
+            for (int index = 0; index < reader.getPageCount(); index++) {
+                task.checkpoint();
+                OcrPage page = reader.read(index);
+                List<OcrWord> words = ocrEnginePool.execute(engine -> engine.recognizeWords(page.image(), page.dpi()), task);
+                consumer.accept(page, words);
+            }
+        }
+    }
+
+    /**
+     * Recognizes pages on at most {@code maxParallelPerDocument} page workers, which pull
+     * the next page number until none are left. Results are stored by page index, so the
+     * text comes back in page order whatever order the pages finished in.
+     */
+    private String[] recognizeInParallel(PageReader reader, int pageCount, OcrTask task) {
+        String[] texts = new String[pageCount];
+        AtomicInteger nextPage = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        int parallelism = Math.max(1, Math.min(maxParallelPerDocument, pageCount));
+        List<Future<?>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(pageExecutor.submit(() -> {
+                int page;
+                while (!failed.get() && (page = nextPage.getAndIncrement()) < pageCount) {
+                    try {
+                        texts[page] = recognize(reader, page, task);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+            }));
+        }
+
+        // Wait for every worker, so the reader is never closed under a running page
+        Throwable failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                failed.set(true);
+                Thread.currentThread().interrupt();
+                throw new OcrProcessingException("Interrupted while processing OCR", e);
+            }
+        }
+
+        if (failure instanceof OcrProcessingException ocrException) {
+            throw ocrException;
+        }
+        if (failure != null) {
+            throw new OcrProcessingException("Failed to process OCR page", failure);
+        }
+
+        return texts;
+    }
+
+    private String recognize(PageReader reader, int index, OcrTask task) {
+        task.checkpoint();
+        OcrPage page;
+        try {
+            page = imagePreprocessor.process(reader.read(index));
+        } catch (IOException e) {
+            throw new OcrProcessingException("Could not read page " + (index + 1), e);
+        }
+        return ocrEnginePool.execute(engine -> engine.recognize(page.image(), page.dpi()), task);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pageExecutor.shutdownNow();
+    }
 }
@@ -0,0 +1,190 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.dto.StorageMigrationStatusDto;
+import com.canscan.ocrsaas.repository.DocumentFileLocation;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.service.StorageMigrationService.Relocation;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves originals stored in the old flat layout ({@code originals/<file>}) to the sharded one
+ * ({@code originals/ab/cd/<file>}) while the application keeps serving them.
+ * <p>
+ * Each batch links every file to its sharded path, switches the rows over in one transaction and
+ * only then removes the flat copy, so a file is reachable at every moment. Already migrated rows
+ * no longer match the batch query, which makes the migration resumable after a stop or a restart.
+ * It is throttled by the batch size and a pause between batches.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageLayoutMigrator {
+
+    private final DocumentRepository documentRepository;
+    private final StorageMigrationService storageMigrationService;
+    private final FileStorageService fileStorageService;
+
+    @Value("${app.storage.migration.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.storage.migration.pause-ms:200}")
+    private long pauseMs;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Long lastDocumentId;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile boolean stopRequested;
+    private Thread thread;
+
+    /**
+     * Starts the migration in the background, unless it is already running.
+     */
+    public synchronized StorageMigrationStatusDto start() {
+        if (thread == null || !thread.isAlive()) {
+            scanned.set(0);
+            moved.set(0);
+            missing.set(0);
+            failed.set(0);
+            lastDocumentId = null;
+            startedAt = LocalDateTime.now();
+            finishedAt = null;
+            stopRequested = false;
+
+            thread = new Thread(this::run, "storage-migration");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return getStatus();
+    }
+
+    /**
+     * Asks the migration to stop after the current batch.
+     */
+    public synchronized StorageMigrationStatusDto stop() {
+        stopRequested = true;
+        return getStatus();
+    }
+
+    public synchronized StorageMigrationStatusDto getStatus() {
+        return StorageMigrationStatusDto.builder()
+                .running(thread != null && thread.isAlive())
+                .scannedDocuments(scanned.get())
+                .movedFiles(moved.get())
+                .missingFiles(missing.get())
+                .failedFiles(failed.get())
+                .lastDocumentId(lastDocumentId)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+
+    private void run() {
+        log.info("Storage layout migration started");
+        try {
+            long afterId = 0;
+            List<DocumentFileLocation> batch;
+            while (!stopRequested && !(batch = documentRepository.findFlatLayoutBatch(afterId, batchSize)).isEmpty()) {
+                migrateBatch(batch);
+                afterId = batch.get(batch.size() - 1).getId();
+                lastDocumentId = afterId;
+                scanned.addAndGet(batch.size());
+
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Storage layout migration aborted after document {}", lastDocumentId, e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            log.info("Storage layout migration {}: {} file(s) moved, {} missing, {} failed",
+                    stopRequested ? "stopped" : "finished", moved.get(), missing.get(), failed.get());
+        }
+    }
+
+    private void migrateBatch(List<DocumentFileLocation> batch) {
+        List<Relocation> originals = new ArrayList<>();
+        for (DocumentFileLocation row : batch) {
+            Relocation original = link(row.getId(), row.getOriginalFilePath());
+            if (original != null) {
+                originals.add(original);
+            }
+        }
+
+        if (originals.isEmpty()) {
+            return;
+        }
+        List<Relocation> applied = storageMigrationService.relocate(originals);
+
+        // Rows now point at the sharded copies; open downloads keep reading the unlinked flat file
+        for (Relocation relocation : originals) {
+            if (applied.contains(relocation)) {
+                removeFlatCopy(relocation);
+            } else {
+                removeShardedCopy(relocation);
+            }
+        }
+    }
+
+    private Relocation link(Long documentId, String flatPath) {
+        String shardedPath = FileStorageService.toShardedPath(flatPath);
+        if (shardedPath == null) {
+            return null;
+        }
+        try {
+            if (!fileStorageService.linkToShardedPath(flatPath, shardedPath)) {
+                missing.incrementAndGet();
+                log.warn("File {} is missing, leaving its path unchanged", flatPath);
+                return null;
+            }
+            return new Relocation(documentId, flatPath, shardedPath);
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            log.warn("Could not move file {} to {}", flatPath, shardedPath, e);
+            return null;
+        }
+    }
+
+    private void removeFlatCopy(Relocation relocation) {
+        try {
+            fileStorageService.deleteFlatCopy(relocation.flatPath());
+            moved.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Could not remove flat copy {}", relocation.flatPath(), e);
+        }
+    }
+
+    // The row was deleted or changed after the batch was read; its flat file stays where the row expects it
+    private void removeShardedCopy(Relocation relocation) {
+        try {
+            fileStorageService.deleteShardedCopy(relocation.shardedPath());
+            log.info("Document {} changed during the migration, removed the sharded copy {}",
+                    relocation.documentId(), relocation.shardedPath());
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Could not remove sharded copy {}", relocation.shardedPath(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+}
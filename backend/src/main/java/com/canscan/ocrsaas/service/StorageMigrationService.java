@@ -0,0 +1,40 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class StorageMigrationService {
+
+    private final DocumentRepository documentRepository;
+
+    /**
+     * An original file moved from the flat to the sharded layout.
+     */
+    public record Relocation(Long documentId, String flatPath, String shardedPath) {
+    }
+
+    /**
+     * Points the rows of one batch at the sharded copies of their files, in a single transaction.
+     *
+     * @return the relocations whose row now points at the sharded copy; a row deleted or changed
+     * since the batch was read is left out, and so is its file
+     */
+    @Transactional
+    public List<Relocation> relocate(List<Relocation> originals) {
+        List<Relocation> applied = new ArrayList<>(originals.size());
+        for (Relocation original : originals) {
+            if (documentRepository.relocateOriginalFile(original.documentId(), original.flatPath(), original.shardedPath()) > 0
+                    || documentRepository.existsByIdAndOriginalFilePath(original.documentId(), original.shardedPath())) {
+                applied.add(original);
+            }
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,12 @@
+package com.canscan.ocrsaas.service;
+
+/**
+ * Result of storing an upload.
+ *
+ * @param path        path relative to the upload directory
+ * @param sha256      hex-encoded SHA-256 of the stored bytes
+ * @param size        number of bytes stored
+ * @param contentType media type sniffed from the leading bytes, or {@code null} if not a supported format
+ */
+public record StoredFile(String path, String sha256, long size, String contentType) {
+}
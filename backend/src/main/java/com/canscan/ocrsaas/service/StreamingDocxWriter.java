@@ -0,0 +1,156 @@
+package com.canscan.ocrsaas.service;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes plain text as a minimal DOCX package straight into a zip stream, one paragraph at a time.
+ * Memory use depends on the longest line, not on the document size.
+ * <p>
+ * Produces the same layout as the XWPF writer: one paragraph per non-blank line, and every page
+ * after the first (separated by {@link OcrService#PAGE_SEPARATOR}) starting on a new page.
+ */
+@Component
+public class StreamingDocxWriter {
+
+    private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+            <Default Extension="xml" ContentType="application/xml"/>\
+            <Override PartName="/word/document.xml" \
+            ContentType="application/vnd.openxmlformats-officedocument.wordprocessingml.document.main+xml"/>\
+            </Types>""";
+
+    private static final String PACKAGE_RELATIONSHIPS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" \
+            Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" \
+            Target="word/document.xml"/>\
+            </Relationships>""";
+
+    private static final int READ_CHUNK_SIZE = 8192;
+
+    // Fixed entry times make the same text always produce the same bytes, and so the same ETag
+    private static final long ENTRY_TIME = 315532800000L;
+
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
+
+    /**
+     * Writes the DOCX for {@code text} to {@code out}. {@code out} is finished but not closed.
+     */
+    public void write(Reader text, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+
+        zip.putNextEntry(entry("[Content_Types].xml"));
+        zip.write(CONTENT_TYPES.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+
+        zip.putNextEntry(entry("_rels/.rels"));
+        zip.write(PACKAGE_RELATIONSHIPS.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+
+        zip.putNextEntry(entry("word/document.xml"));
+        try {
+            writeDocument(text, zip);
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write document.xml", e);
+        }
+        zip.closeEntry();
+
+        zip.finish();
+    }
+
+    private void writeDocument(Reader text, OutputStream out) throws IOException, XMLStreamException {
+        XMLStreamWriter xml = xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.setPrefix("w", WORDPROCESSING_NS);
+        xml.writeStartElement(WORDPROCESSING_NS, "document");
+        xml.writeNamespace("w", WORDPROCESSING_NS);
+        xml.writeStartElement(WORDPROCESSING_NS, "body");
+
+        char pageSeparator = OcrService.PAGE_SEPARATOR.charAt(0);
+        char[] chunk = new char[READ_CHUNK_SIZE];
+        StringBuilder line = new StringBuilder();
+        boolean pageBreakPending = false;
+        int read;
+        while ((read = text.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = chunk[i];
+                if (c == '\n' || c == pageSeparator) {
+                    pageBreakPending = writeParagraph(xml, line, pageBreakPending) || c == pageSeparator;
+                    line.setLength(0);
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+        writeParagraph(xml, line, pageBreakPending);
+
+        xml.writeEmptyElement(WORDPROCESSING_NS, "sectPr");
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+
+    /**
+     * Writes one line as a paragraph, skipping blank lines.
+     *
+     * @return whether a page break is still pending for the next paragraph
+     */
+    private static boolean writeParagraph(XMLStreamWriter xml, CharSequence line, boolean pageBreak) throws XMLStreamException {
+        if (line.toString().trim().isEmpty()) {
+            return pageBreak;
+        }
+
+        xml.writeStartElement(WORDPROCESSING_NS, "p");
+        if (pageBreak) {
+            xml.writeStartElement(WORDPROCESSING_NS, "pPr");
+            xml.writeEmptyElement(WORDPROCESSING_NS, "pageBreakBefore");
+            xml.writeAttribute(WORDPROCESSING_NS, "val", "true");
+            xml.writeEndElement();
+        }
+        xml.writeStartElement(WORDPROCESSING_NS, "r");
+        xml.writeStartElement(WORDPROCESSING_NS, "t");
+        xml.writeAttribute("xml", "http://www.w3.org/XML/1998/namespace", "space", "preserve");
+        xml.writeCharacters(sanitize(line));
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+        return false;
+    }
+
+    /**
+     * Drops carriage returns and the control characters XML 1.0 cannot represent, which OCR output may contain.
+     */
+    private static String sanitize(CharSequence line) {
+        StringBuilder clean = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch >= 0x20 || ch == '\t') {
+                clean.append(ch);
+            }
+        }
+        return clean.toString();
+    }
+
+    private static ZipEntry entry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        return entry;
+    }
+}
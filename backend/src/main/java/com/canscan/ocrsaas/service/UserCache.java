@@ -0,0 +1,45 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.ResourceNotFoundException;
+import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Small, bounded cache of full user entities for the few requests that need more
+ * than the id and role carried by the token. Entries are read-only snapshots.
+ * <p>
+ * Updates and deletions on this node evict the entry through {@link UserCacheEvictionListener}.
+ * Other API nodes keep their copy until {@code app.user-cache.ttl-seconds} passes, which bounds
+ * how long a change made elsewhere can go unseen.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> users;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${app.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public User get(Long id) {
+        return users.get(id, key -> userRepository.findById(key)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", key)));
+    }
+
+    public void evict(Long id) {
+        users.invalidate(id);
+    }
+}
@@ -0,0 +1,37 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts a user from {@link UserCache} whenever the entity is updated or deleted, whatever
+ * code path changed it. Eviction waits for the commit, so a concurrent read cannot put the
+ * old row back in the cache. Bulk JPQL updates bypass entity listeners; there are none on users.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+
+    private final UserCache userCache;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        Long id = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.evict(id);
+                }
+            });
+        } else {
+            userCache.evict(id);
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package com.canscan.ocrsaas.service;
 
+import com.canscan.ocrsaas.config.security.AuthenticatedUser;
 import com.canscan.ocrsaas.dto.UserDto;
-import com.canscan.ocrsaas.exception.ResourceNotFoundException;
 import com.canscan.ocrsaas.model.User;
 import com.canscan.ocrsaas.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,19 +13,24 @@ import org.springframework.stereotype.Service;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
 
     public UserDto getCurrentUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", userDetails.getUsername()));
+        return mapToDto(userCache.get(getAuthenticatedUserId()));
+    }
 
-        return mapToDto(user);
+    public Long getAuthenticatedUserId() {
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return principal.getId();
     }
 
+    /**
+     * Returns a reference to the authenticated user without querying the database.
+     * Only the id is available without a lookup, which is all ownership checks and
+     * associations need; use {@link UserCache} when the full entity is required.
+     */
     public User getAuthenticatedUser() {
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", userDetails.getUsername()));
+        return userRepository.getReferenceById(getAuthenticatedUserId());
     }
 
     private UserDto mapToDto(User user) {
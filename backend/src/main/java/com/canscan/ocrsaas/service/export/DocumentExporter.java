@@ -0,0 +1,19 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.repository.DocumentFileView;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Renders a completed document in one {@link ExportFormat}. Exports are cached, so
+ * {@link #cacheKey} must change whenever anything the output depends on changes.
+ */
+public interface DocumentExporter {
+
+    ExportFormat getFormat();
+
+    String cacheKey(DocumentFileView document);
+
+    void export(ExportSource source, OutputStream out) throws IOException;
+}
@@ -0,0 +1,31 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import com.canscan.ocrsaas.service.DocService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Component
+@RequiredArgsConstructor
+public class DocxExporter implements DocumentExporter {
+
+    private final DocService docService;
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.DOCX;
+    }
+
+    @Override
+    public String cacheKey(DocumentFileView document) {
+        return "docx/" + document.getTextHash();
+    }
+
+    @Override
+    public void export(ExportSource source, OutputStream out) throws IOException {
+        docService.writeDocx(source.text().get(), out);
+    }
+}
@@ -0,0 +1,24 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.repository.DocumentFileView;
+
+import java.util.List;
+
+/**
+ * The documents of a ZIP export, resolved up front so the archive can be written
+ * after the request thread has returned.
+ *
+ * @param filename       name to suggest to the client
+ * @param format         format of the exported documents
+ * @param includePending whether documents that are not processed yet are added as their original file
+ * @param entries        documents in archive order
+ */
+public record ExportArchive(String filename, ExportFormat format, boolean includePending, List<Entry> entries) {
+
+    /**
+     * @param directory folder of the entry inside the archive, empty or ending with {@code /}
+     * @param document  the document to export
+     */
+    public record Entry(String directory, DocumentFileView document) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.exception.BadRequestException;
+
+import java.util.Locale;
+
+/**
+ * Formats a document can be downloaded in, selected by the {@code format} request parameter.
+ */
+public enum ExportFormat {
+
+    DOCX("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+    TXT("txt", "text/plain;charset=UTF-8"),
+    MD("md", "text/markdown;charset=UTF-8"),
+    PDF("pdf", "application/pdf");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Parses a format parameter such as {@code docx} or {@code markdown}, ignoring case.
+     */
+    public static ExportFormat fromParam(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        if (normalized.equals("markdown")) {
+            return MD;
+        }
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(normalized)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported export format: " + value);
+    }
+}
@@ -0,0 +1,206 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.exception.BadRequestException;
+import com.canscan.ocrsaas.model.Document;
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.service.ArtifactCache;
+import com.canscan.ocrsaas.service.FileStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders document exports through the {@link ArtifactCache} and writes ZIP archives of them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final int ARCHIVE_BUFFER_SIZE = 64 * 1024;
+    private static final String ERRORS_ENTRY = "_errors.txt";
+
+    private final DocumentRepository documentRepository;
+    private final FileStorageService fileStorageService;
+    private final ArtifactCache artifactCache;
+    private final List<DocumentExporter> exporters;
+
+    /**
+     * Opens the cached export of a completed document, rendering it on a miss. The caller must close it.
+     */
+    public ArtifactCache.CachedArtifact render(DocumentFileView document, ExportFormat format) throws IOException {
+        DocumentExporter exporter = exporter(format);
+        Long id = document.getId();
+        String textHash = document.getTextHash();
+        ExportSource source = new ExportSource(document, () ->
+                // Loaded only on a miss; the hash check keeps an edit made meanwhile out of this entry
+                documentRepository.findExtractedTextByIdAndTextHash(id, textHash)
+                        .orElseThrow(() -> new BadRequestException("Document text changed, retry the download")));
+        return artifactCache.get(exporter.cacheKey(document), out -> exporter.export(source, out));
+    }
+
+    private DocumentExporter exporter(ExportFormat format) {
+        return exporters.stream()
+                .filter(candidate -> candidate.getFormat() == format)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported export format: " + format));
+    }
+
+    /**
+     * Writes the archive to {@code out} one entry at a time, so nothing but the chunk being
+     * copied is buffered. A document whose export or original cannot be opened is listed in
+     * {@code _errors.txt} instead of failing the download halfway through; write failures,
+     * such as the client going away, end the archive.
+     * <p>
+     * A searchable PDF costs a full OCR of the original, too much to run for a whole archive,
+     * so PDF archives only hold the PDFs already rendered by single downloads; the rest are listed as errors.
+     */
+    public void writeArchive(ExportArchive archive, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, ARCHIVE_BUFFER_SIZE), StandardCharsets.UTF_8);
+        WritableByteChannel target = Channels.newChannel(zip);
+        ByteBuffer buffer = ByteBuffer.allocate(ARCHIVE_BUFFER_SIZE);
+        Set<String> names = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        boolean compressText = archive.format() == ExportFormat.TXT || archive.format() == ExportFormat.MD;
+
+        for (ExportArchive.Entry entry : archive.entries()) {
+            DocumentFileView document = entry.document();
+            boolean ready = isReady(document);
+            if (!ready && !archive.includePending()) {
+                continue;
+            }
+
+            ReadableByteChannel source;
+            try {
+                source = ready ? openExport(document, archive.format())
+                        : openOriginal(document.getOriginalFilePath());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not export document {} to archive", document.getId(), e);
+                errors.add(entry.directory() + document.getName() + ": " + e.getMessage());
+                continue;
+            }
+            if (source == null) {
+                errors.add(entry.directory() + document.getName() + ": searchable PDF not generated yet, download it as pdf first");
+                continue;
+            }
+
+            try (source) {
+                String name = ready ? withExtension(document.getName(), archive.format()) : document.getName();
+                putEntry(zip, names, entry.directory(), name, ready && compressText);
+                copy(source, target, buffer);
+                zip.closeEntry();
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            putEntry(zip, names, "", ERRORS_ENTRY, true);
+            zip.write(String.join("\n", errors).concat("\n").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * The export of a document for an archive, or {@code null} for a searchable PDF that is not rendered yet.
+     */
+    private ReadableByteChannel openExport(DocumentFileView document, ExportFormat format) throws IOException {
+        if (format == ExportFormat.PDF) {
+            ArtifactCache.CachedArtifact cached = artifactCache.find(exporter(format).cacheKey(document));
+            return cached != null ? cached.channel() : null;
+        }
+        return render(document, format).channel();
+    }
+
+    public static String withExtension(String name, ExportFormat format) {
+        return name.endsWith("." + format.getExtension()) ? name : name + "." + format.getExtension();
+    }
+
+    private static boolean isReady(DocumentFileView document) {
+        return document.getStatus() == Document.Status.COMPLETED && document.getTextHash() != null;
+    }
+
+    /**
+     * Starts an entry with a name unique within the archive. Formats that are already
+     * compressed (DOCX, PDF, images) are stored without spending CPU on deflating them again.
+     */
+    private static void putEntry(ZipOutputStream zip, Set<String> names, String directory, String name,
+                                 boolean compress) throws IOException {
+        String cleanName = safeName(name);
+        String entryName = directory + cleanName;
+        for (int copy = 2; !names.add(entryName); copy++) {
+            int dot = cleanName.lastIndexOf('.');
+            entryName = dot > 0
+                    ? directory + cleanName.substring(0, dot) + " (" + copy + ")" + cleanName.substring(dot)
+                    : directory + cleanName + " (" + copy + ")";
+        }
+        zip.setLevel(compress ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(entryName));
+    }
+
+    /**
+     * A user-chosen name made safe as one path segment of an archive entry: no separators or
+     * control characters, and never empty, {@code .} or {@code ..}, so an entry cannot point
+     * outside the directory it is extracted to.
+     */
+    public static String safeName(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        name.codePoints().forEach(codePoint -> result.appendCodePoint(
+                codePoint == '/' || codePoint == '\\' || Character.isISOControl(codePoint) ? '_' : codePoint));
+        String safe = result.toString().strip();
+        return safe.isEmpty() || safe.chars().allMatch(c -> c == '.') ? "_" + safe : safe;
+    }
+
+    private static void copy(ReadableByteChannel source, WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        if (source instanceof FileChannel file) {
+            long position = 0;
+            long size = file.size();
+            while (position < size) {
+                long transferred = file.transferTo(position, size - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return;
+        }
+
+        buffer.clear();
+        while (source.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private ReadableByteChannel openOriginal(String storedPath) throws IOException {
+        Optional<Path> localPath = fileStorageService.getLocalPath(storedPath);
+        if (localPath.isPresent()) {
+            return FileChannel.open(localPath.get(), StandardOpenOption.READ);
+        }
+        return Channels.newChannel(fileStorageService.openRead(storedPath));
+    }
+}
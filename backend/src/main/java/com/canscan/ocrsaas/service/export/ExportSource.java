@@ -0,0 +1,12 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.repository.DocumentFileView;
+
+import java.util.function.Supplier;
+
+/**
+ * What an exporter renders from: the document's file columns, and its extracted text,
+ * which is only loaded if the exporter asks for it.
+ */
+public record ExportSource(DocumentFileView document, Supplier<String> text) {
+}
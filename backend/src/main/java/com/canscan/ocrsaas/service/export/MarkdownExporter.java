@@ -0,0 +1,102 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import com.canscan.ocrsaas.service.OcrService;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The extracted text as Markdown: OCR lines are kept, blank lines separate paragraphs and
+ * pages are separated by a thematic break. Characters Markdown would interpret are escaped,
+ * so the text renders as it was recognized.
+ */
+@Component
+public class MarkdownExporter implements DocumentExporter {
+
+    private static final String PAGE_BREAK = "---";
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.MD;
+    }
+
+    @Override
+    public String cacheKey(DocumentFileView document) {
+        return "md/" + document.getTextHash();
+    }
+
+    @Override
+    public void export(ExportSource source, OutputStream out) throws IOException {
+        String text = source.text().get();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        boolean started = false;
+        boolean blankPending = false;
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int lineEnd = nextBreak(text, lineStart);
+            String line = text.substring(lineStart, lineEnd).strip();
+
+            if (!line.isEmpty()) {
+                if (started && blankPending) {
+                    writer.write('\n');
+                }
+                writeEscaped(line, writer);
+                writer.write('\n');
+                started = true;
+                blankPending = false;
+            } else {
+                blankPending = true;
+            }
+
+            if (lineEnd < text.length() && text.startsWith(OcrService.PAGE_SEPARATOR, lineEnd) && started) {
+                writer.write('\n');
+                writer.write(PAGE_BREAK);
+                writer.write('\n');
+                blankPending = true;
+            }
+            lineStart = lineEnd + 1;
+        }
+        writer.flush();
+    }
+
+    private static int nextBreak(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\n' || ch == OcrService.PAGE_SEPARATOR.charAt(0)) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    private static void writeEscaped(String line, Writer writer) throws IOException {
+        char first = line.charAt(0);
+        if (first == '#' || first == '+' || first == '-' || first == '=' || first == '|') {
+            writer.write('\\');
+        }
+
+        // "1." or "1)" at the start of a line would become an ordered list
+        int digits = 0;
+        while (digits < line.length() && Character.isDigit(line.charAt(digits))) {
+            digits++;
+        }
+        int listMarker = digits > 0 && digits < line.length()
+                && (line.charAt(digits) == '.' || line.charAt(digits) == ')') ? digits : -1;
+
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (i == listMarker || ch == '\\' || ch == '*' || ch == '_' || ch == '`'
+                    || ch == '[' || ch == ']' || ch == '<' || ch == '>') {
+                writer.write('\\');
+            }
+            writer.write(ch);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.exception.OcrOverloadedException;
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import com.canscan.ocrsaas.service.OcrAdmissionController;
+import com.canscan.ocrsaas.service.OcrService;
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import com.canscan.ocrsaas.service.ocr.OcrTask;
+import com.canscan.ocrsaas.service.ocr.OcrWord;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.util.Matrix;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A PDF with each page of the original as an image and the recognized words laid over it
+ * as invisible text, so the file can be searched and copied from while looking like the scan.
+ * <p>
+ * Word positions are not stored, so the original is recognized again, page by page, on the
+ * first export; the result is cached per original content and OCR settings.
+ * <p>
+ * That recognition runs on the request thread, so it is gated like an upload: it needs one of
+ * {@code app.export.pdf.max-concurrent} slots on this node and a place under the cluster's admission
+ * limit, or the request gets a 429 with Retry-After. It must finish within {@code app.export.pdf.timeout-ms}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchablePdfExporter implements DocumentExporter {
+
+    private static final float POINTS_PER_INCH = 72f;
+    private static final PDType1Font FONT = PDType1Font.HELVETICA;
+
+    private final OcrService ocrService;
+    private final OcrAdmissionController ocrAdmissionController;
+
+    // Assumed for images that do not record their resolution
+    @Value("${app.export.pdf.default-dpi:300}")
+    private int defaultDpi;
+
+    @Value("${app.export.pdf.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${app.export.pdf.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${app.export.pdf.timeout-ms:120000}")
+    private long timeoutMs;
+
+    @Value("${app.ocr.admission.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private Semaphore renders;
+
+    @PostConstruct
+    public void init() {
+        renders = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.PDF;
+    }
+
+    @Override
+    public String cacheKey(DocumentFileView document) {
+        String content = document.getContentHash() != null ? document.getContentHash() : "document-" + document.getId();
+        return "pdf/" + content + "-" + ocrService.getSettingsKey().substring(0, 16);
+    }
+
+    @Override
+    public void export(ExportSource source, OutputStream out) throws IOException {
+        if (!renders.tryAcquire()) {
+            throw new OcrOverloadedException(retryAfterSeconds);
+        }
+        try {
+            ocrAdmissionController.admit(1);
+            OcrTask task = OcrTask.withTimeout(timeoutMs);
+
+            // Page images are spooled to a scratch file, not kept on the heap until save
+            try (PDDocument pdf = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+                ocrService.recognizeWords(source.document().getOriginalFilePath(), task,
+                        (page, words) -> addPage(pdf, page, words));
+                pdf.save(out);
+            }
+        } finally {
+            renders.release();
+        }
+    }
+
+    private void addPage(PDDocument pdf, OcrPage page, List<OcrWord> words) throws IOException {
+        BufferedImage image = page.image();
+        float scale = POINTS_PER_INCH / (page.dpi() > 0 ? page.dpi() : defaultDpi);
+        float width = image.getWidth() * scale;
+        float height = image.getHeight() * scale;
+
+        PDPage pdfPage = new PDPage(new PDRectangle(width, height));
+        pdf.addPage(pdfPage);
+
+        // Bilevel scans compress far better losslessly; photos and rendered pages as JPEG
+        PDImageXObject pageImage = image.getType() == BufferedImage.TYPE_BYTE_BINARY
+                ? LosslessFactory.createFromImage(pdf, image)
+                : JPEGFactory.createFromImage(pdf, image, jpegQuality);
+
+        try (PDPageContentStream content = new PDPageContentStream(pdf, pdfPage)) {
+            content.drawImage(pageImage, 0, 0, width, height);
+
+            content.beginText();
+            content.setRenderingMode(RenderingMode.NEITHER);
+            for (OcrWord word : words) {
+                addWord(content, word, scale, image.getHeight());
+            }
+            content.endText();
+        }
+    }
+
+    /**
+     * Places a word on its box: the font size follows the box height and the horizontal
+     * scaling stretches the word to the box width, so selections match the image.
+     */
+    private void addWord(PDPageContentStream content, OcrWord word, float scale, int imageHeight) throws IOException {
+        String text = encodable(word.text());
+        if (text.isEmpty() || word.width() <= 0 || word.height() <= 0) {
+            return;
+        }
+
+        float fontSize = word.height() * scale;
+        float textWidth = FONT.getStringWidth(text) / 1000f * fontSize;
+        if (textWidth <= 0) {
+            return;
+        }
+
+        content.setFont(FONT, fontSize);
+        content.setHorizontalScaling(word.width() * scale / textWidth * 100f);
+        content.setTextMatrix(Matrix.getTranslateInstance(word.left() * scale, (imageHeight - word.bottom()) * scale));
+        content.showText(text);
+    }
+
+    /**
+     * Replaces characters the standard font cannot encode, which would otherwise fail the whole export.
+     */
+    private static String encodable(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        text.codePoints().forEach(codePoint -> {
+            String character = Character.toString(codePoint);
+            try {
+                FONT.encode(character);
+                result.append(character);
+            } catch (IOException | IllegalArgumentException e) {
+                result.append('?');
+            }
+        });
+        return result.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The extracted text as UTF-8, pages separated by form feeds as in Tesseract's own text output.
+ */
+@Component
+public class TextExporter implements DocumentExporter {
+
+    private static final int WRITE_CHUNK_SIZE = 8192;
+
+    @Override
+    public ExportFormat getFormat() {
+        return ExportFormat.TXT;
+    }
+
+    @Override
+    public String cacheKey(DocumentFileView document) {
+        return "txt/" + document.getTextHash();
+    }
+
+    @Override
+    public void export(ExportSource source, OutputStream out) throws IOException {
+        String text = source.text().get();
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        // Encoded chunk by chunk rather than through one getBytes copy of the whole text
+        for (int start = 0; start < text.length(); start += WRITE_CHUNK_SIZE) {
+            writer.write(text, start, Math.min(WRITE_CHUNK_SIZE, text.length() - start));
+        }
+        writer.flush();
+    }
+}
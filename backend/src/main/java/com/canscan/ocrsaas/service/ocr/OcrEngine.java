@@ -0,0 +1,181 @@
+package com.canscan.ocrsaas.service.ocr;
+
+import com.canscan.ocrsaas.exception.OcrProcessingException;
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.ITessAPI.TessPageIterator;
+import net.sourceforge.tess4j.ITessAPI.TessPageIteratorLevel;
+import net.sourceforge.tess4j.ITessAPI.TessResultIterator;
+import net.sourceforge.tess4j.TessAPI;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single native Tesseract engine with its traineddata already loaded.
+ * Instances are not thread-safe and are handed out by {@link OcrEnginePool}.
+ */
+public class OcrEngine implements AutoCloseable {
+
+    private final TessAPI api;
+    private final TessBaseAPI handle;
+    private int uses;
+
+    OcrEngine(String dataPath, String language) {
+        this.api = TessAPI.INSTANCE;
+        this.handle = api.TessBaseAPICreate();
+
+        if (api.TessBaseAPIInit3(handle, dataPath, language) != 0) {
+            api.TessBaseAPIDelete(handle);
+            throw new OcrProcessingException("Could not initialize Tesseract for language '" + language + "' from " + dataPath);
+        }
+    }
+
+    public String recognize(BufferedImage image, int dpi) {
+        setImage(image, dpi);
+        try {
+            recognizePage();
+
+            Pointer text = api.TessBaseAPIGetUTF8Text(handle);
+            if (text == null) {
+                return "";
+            }
+            try {
+                return text.getString(0, StandardCharsets.UTF_8.name());
+            } finally {
+                api.TessDeleteText(text);
+            }
+        } finally {
+            api.TessBaseAPIClear(handle);
+        }
+    }
+
+    /**
+     * Recognizes the page and returns every word with its bounding box, in reading order.
+     */
+    public List<OcrWord> recognizeWords(BufferedImage image, int dpi) {
+        setImage(image, dpi);
+        try {
+            recognizePage();
+
+            List<OcrWord> words = new ArrayList<>();
+            TessResultIterator iterator = api.TessBaseAPIGetIterator(handle);
+            if (iterator == null) {
+                return words;
+            }
+            try {
+                TessPageIterator page = api.TessResultIteratorGetPageIterator(iterator);
+                IntBuffer left = IntBuffer.allocate(1);
+                IntBuffer top = IntBuffer.allocate(1);
+                IntBuffer right = IntBuffer.allocate(1);
+                IntBuffer bottom = IntBuffer.allocate(1);
+                do {
+                    Pointer text = api.TessResultIteratorGetUTF8Text(iterator, TessPageIteratorLevel.RIL_WORD);
+                    if (text == null) {
+                        continue;
+                    }
+                    String word;
+                    try {
+                        word = text.getString(0, StandardCharsets.UTF_8.name()).strip();
+                    } finally {
+                        api.TessDeleteText(text);
+                    }
+                    if (!word.isEmpty()
+                            && api.TessPageIteratorBoundingBox(page, TessPageIteratorLevel.RIL_WORD, left, top, right, bottom) != 0) {
+                        words.add(new OcrWord(word, left.get(0), top.get(0), right.get(0), bottom.get(0)));
+                    }
+                } while (api.TessResultIteratorNext(iterator, TessPageIteratorLevel.RIL_WORD) != 0);
+            } finally {
+                api.TessResultIteratorDelete(iterator);
+            }
+            return words;
+        } finally {
+            api.TessBaseAPIClear(handle);
+        }
+    }
+
+    private void setImage(BufferedImage image, int dpi) {
+        uses++;
+
+        Pixels pixels = Pixels.of(image);
+        api.TessBaseAPISetImage(handle, pixels.buffer(), pixels.width(), pixels.height(),
+                pixels.bitsPerPixel() / 8, pixels.bytesPerLine());
+        if (dpi > 0) {
+            api.TessBaseAPISetSourceResolution(handle, dpi);
+        }
+    }
+
+    private void recognizePage() {
+        if (api.TessBaseAPIRecognize(handle, null) != 0) {
+            throw new OcrProcessingException("Tesseract could not recognize the page");
+        }
+    }
+
+    /**
+     * Raw pixel rows in a layout Tesseract reads directly: 1-bit, 8-bit gray or 24-bit.
+     * The depth always describes the buffer handed over; tess4j's own helper quietly turns
+     * rasters that are not byte-backed into 8-bit gray, which would not match the image's depth.
+     */
+    record Pixels(ByteBuffer buffer, int width, int height, int bitsPerPixel) {
+
+        static Pixels of(BufferedImage image) {
+            BufferedImage source = switch (image.getType()) {
+                case BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_3BYTE_BGR -> compact(image, image.getType());
+                case BufferedImage.TYPE_BYTE_BINARY -> image.getColorModel().getPixelSize() == 1
+                        ? compact(image, BufferedImage.TYPE_BYTE_BINARY)
+                        : redraw(image, BufferedImage.TYPE_BYTE_GRAY);
+                // INT_RGB (rendered PDF pages), 16-bit gray, indexed, alpha and custom rasters
+                default -> redraw(image, BufferedImage.TYPE_BYTE_GRAY);
+            };
+            return new Pixels(ImageIOHelper.convertImageData(source), source.getWidth(), source.getHeight(),
+                    source.getColorModel().getPixelSize());
+        }
+
+        int bytesPerLine() {
+            return (width * bitsPerPixel + 7) / 8;
+        }
+
+        /**
+         * The image itself when its data buffer holds exactly its own rows, otherwise a copy;
+         * a cropped sub-image still shares the larger buffer of its parent.
+         */
+        private static BufferedImage compact(BufferedImage image, int type) {
+            WritableRaster raster = image.getRaster();
+            int bytesPerLine = (image.getWidth() * image.getColorModel().getPixelSize() + 7) / 8;
+            boolean ownsBuffer = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                    && raster.getDataBuffer() instanceof DataBufferByte data
+                    && data.getNumBanks() == 1 && data.getOffset() == 0
+                    && data.getData().length == bytesPerLine * image.getHeight();
+            return ownsBuffer ? image : redraw(image, type);
+        }
+
+        private static BufferedImage redraw(BufferedImage image, int type) {
+            BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), type);
+            Graphics2D g = copy.createGraphics();
+            try {
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            return copy;
+        }
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    @Override
+    public void close() {
+        api.TessBaseAPIEnd(handle);
+        api.TessBaseAPIDelete(handle);
+    }
+}
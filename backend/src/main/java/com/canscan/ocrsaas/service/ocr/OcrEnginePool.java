@@ -0,0 +1,269 @@
+package com.canscan.ocrsaas.service.ocr;
+
+import com.canscan.ocrsaas.config.NodeRole;
+import com.canscan.ocrsaas.exception.OcrCancelledException;
+import com.canscan.ocrsaas.exception.OcrProcessingException;
+import com.canscan.ocrsaas.exception.OcrTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of warmed-up {@link OcrEngine} instances.
+ * Engines are created at startup on worker nodes, reused across documents and recycled after
+ * {@code app.ocr.pool.max-uses} pages or as soon as a recognition fails.
+ * <p>
+ * Native calls run on their own threads while the caller waits with a deadline. A call that
+ * overruns its page timeout, or whose run is cancelled, cannot be interrupted inside Tesseract:
+ * its engine is abandoned and closed once the call returns, and its permit is handed back
+ * straight away so a fresh engine takes its place, up to {@code app.ocr.watchdog.max-stalled-engines}
+ * engines stuck at the same time.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OcrEnginePool {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ocr.data-path:./tessdata}")
+    private String tessdataPath;
+
+    @Value("${app.ocr.language:eng}")
+    private String language;
+
+    @Value("${app.ocr.pool.size:0}")
+    private int configuredSize;
+
+    @Value("${app.ocr.pool.max-uses:500}")
+    private int maxUses;
+
+    @Value("${app.ocr.pool.borrow-timeout-ms:60000}")
+    private long borrowTimeoutMs;
+
+    @Value("${app.ocr.timeout.page-ms:120000}")
+    private long pageTimeoutMs;
+
+    @Value("${app.ocr.watchdog.max-stalled-engines:0}")
+    private int configuredMaxStalled;
+
+    @Value("${app.role:both}")
+    private String role;
+
+    private final BlockingDeque<OcrEngine> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicInteger stalled = new AtomicInteger();
+    private Semaphore permits;
+    private int size;
+    private int maxStalled;
+
+    // Unbounded on purpose: concurrency is bounded by the permits, and a thread stuck in
+    // a native call must not keep its replacement from starting
+    private final ExecutorService nativeExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("ocr-engine-"));
+
+    private Timer waitTimer;
+    private Counter recycledMaxUses;
+    private Counter recycledFailure;
+    private Counter abandonedTimeout;
+    private Counter abandonedCancelled;
+
+    @PostConstruct
+    public void init() {
+        size = configuredSize > 0 ? configuredSize : Runtime.getRuntime().availableProcessors();
+        maxStalled = configuredMaxStalled > 0 ? configuredMaxStalled : size;
+        permits = new Semaphore(size, true);
+
+        Gauge.builder("ocr.engine.pool.size", () -> size).register(meterRegistry);
+        Gauge.builder("ocr.engine.pool.borrowed", borrowed, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("ocr.engine.pool.idle", idle, BlockingDeque::size).register(meterRegistry);
+        Gauge.builder("ocr.engine.pool.stalled", stalled, AtomicInteger::get).register(meterRegistry);
+        waitTimer = Timer.builder("ocr.engine.pool.wait")
+                .description("Time spent waiting for a free OCR engine")
+                .register(meterRegistry);
+        recycledMaxUses = Counter.builder("ocr.engine.pool.recycled").tag("reason", "max-uses").register(meterRegistry);
+        recycledFailure = Counter.builder("ocr.engine.pool.recycled").tag("reason", "failure").register(meterRegistry);
+        abandonedTimeout = Counter.builder("ocr.engine.pool.abandoned").tag("reason", "timeout").register(meterRegistry);
+        abandonedCancelled = Counter.builder("ocr.engine.pool.abandoned").tag("reason", "cancelled").register(meterRegistry);
+
+        // API nodes only run OCR for searchable PDF exports, so they create engines on demand
+        if (!NodeRole.from(role).runsWorker()) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < size; i++) {
+                idle.offer(new OcrEngine(tessdataPath, language));
+            }
+            log.info("OCR engine pool warmed up with {} engine(s) for language '{}'", size, language);
+        } catch (OcrProcessingException | LinkageError e) {
+            log.warn("Could not warm up OCR engine pool, engines will be created on first use", e);
+        }
+    }
+
+    /**
+     * Runs {@code work} on a pooled engine, blocking until one is free, within the page timeout.
+     */
+    public <T> T execute(Function<OcrEngine, T> work) {
+        return execute(work, OcrTask.unbounded());
+    }
+
+    /**
+     * Runs {@code work} on a pooled engine within the page timeout and what is left of {@code task}'s deadline.
+     *
+     * @throws OcrTimeoutException if the engine does not return in time
+     * @throws OcrCancelledException if {@code task} is cancelled while the engine is working
+     */
+    public <T> T execute(Function<OcrEngine, T> work, OcrTask task) {
+        task.checkpoint();
+        OcrEngine engine = borrow();
+        long timeoutMs = Math.min(pageTimeoutMs, task.remainingMillis());
+        CompletableFuture<T> call = CompletableFuture.supplyAsync(() -> work.apply(engine), nativeExecutor);
+
+        try {
+            CompletableFuture.anyOf(call, task.cancellation()).get(Math.max(timeoutMs, 1), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Failures are read from the call itself below, and an unfinished call is a timeout
+        } catch (InterruptedException e) {
+            abandon(engine, call, abandonedCancelled);
+            Thread.currentThread().interrupt();
+            throw new OcrProcessingException("Interrupted while processing OCR", e);
+        }
+
+        if (!call.isDone()) {
+            if (task.isCancelled()) {
+                abandon(engine, call, abandonedCancelled);
+                throw new OcrCancelledException("OCR was cancelled");
+            }
+            abandon(engine, call, abandonedTimeout);
+            throw new OcrTimeoutException(timeoutMs < pageTimeoutMs
+                    ? "OCR document deadline passed while a page was being recognized"
+                    : "OCR engine did not finish a page within " + pageTimeoutMs + " ms");
+        }
+
+        boolean healthy = false;
+        try {
+            T result = call.join();
+            healthy = true;
+            return result;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new OcrProcessingException("OCR engine failed", e.getCause());
+        } finally {
+            release(engine, healthy);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    private OcrEngine borrow() {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new OcrProcessingException("Timed out waiting for a free OCR engine");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OcrProcessingException("Interrupted while waiting for a free OCR engine", e);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        OcrEngine engine = idle.pollFirst();
+        if (engine == null) {
+            try {
+                engine = new OcrEngine(tessdataPath, language);
+            } catch (RuntimeException | LinkageError e) {
+                permits.release();
+                throw new OcrProcessingException("Could not create OCR engine", e);
+            }
+        }
+        borrowed.incrementAndGet();
+        return engine;
+    }
+
+    private void release(OcrEngine engine, boolean healthy) {
+        borrowed.decrementAndGet();
+        try {
+            if (!healthy) {
+                recycledFailure.increment();
+                engine.close();
+            } else if (engine.getUses() >= maxUses) {
+                recycledMaxUses.increment();
+                engine.close();
+            } else {
+                // LIFO keeps the most recently used engines hot
+                idle.offerFirst(engine);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Gives up on an engine whose native call is still running. The engine is closed
+     * once the call returns; its permit is returned now unless too many engines are stuck.
+     */
+    private void abandon(OcrEngine engine, CompletableFuture<?> call, Counter reason) {
+        borrowed.decrementAndGet();
+        reason.increment();
+        boolean replaced = stalled.incrementAndGet() <= maxStalled;
+        if (replaced) {
+            permits.release();
+        } else {
+            log.warn("{} OCR engine(s) are stuck in native calls, not replacing another one", stalled.get() - 1);
+        }
+
+        call.whenComplete((result, error) -> {
+            stalled.decrementAndGet();
+            try {
+                engine.close();
+            } finally {
+                if (!replaced) {
+                    permits.release();
+                }
+            }
+            log.info("Abandoned OCR engine returned from its native call and was closed");
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        nativeExecutor.shutdownNow();
+        OcrEngine engine;
+        while ((engine = idle.pollFirst()) != null) {
+            engine.close();
+        }
+    }
+}
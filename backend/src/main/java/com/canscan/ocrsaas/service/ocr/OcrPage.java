@@ -0,0 +1,13 @@
+package com.canscan.ocrsaas.service.ocr;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * One page of an uploaded file, ready to be recognized.
+ *
+ * @param index zero-based page number
+ * @param image page raster
+ * @param dpi   source resolution, or 0 when unknown
+ */
+public record OcrPage(int index, BufferedImage image, int dpi) {
+}
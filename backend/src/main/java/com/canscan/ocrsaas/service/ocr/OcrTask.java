@@ -0,0 +1,68 @@
+package com.canscan.ocrsaas.service.ocr;
+
+import com.canscan.ocrsaas.exception.OcrCancelledException;
+import com.canscan.ocrsaas.exception.OcrTimeoutException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline and cancellation signal of one OCR run. Checked before every page, and
+ * raced against every engine call so a cancelled run stops waiting at once.
+ */
+public final class OcrTask {
+
+    private final long timeoutMs;
+    private final long deadlineNanos;
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+
+    private OcrTask(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * A run that must finish within {@code timeoutMs}; zero or less means no document deadline.
+     */
+    public static OcrTask withTimeout(long timeoutMs) {
+        return new OcrTask(timeoutMs);
+    }
+
+    public static OcrTask unbounded() {
+        return new OcrTask(0);
+    }
+
+    public void cancel() {
+        cancellation.complete(null);
+    }
+
+    public boolean isCancelled() {
+        return cancellation.isDone();
+    }
+
+    /**
+     * Completes when the run is cancelled; never completes exceptionally.
+     */
+    CompletableFuture<Void> cancellation() {
+        return cancellation;
+    }
+
+    public long remainingMillis() {
+        if (timeoutMs <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Throws if the run was cancelled or its deadline has passed.
+     */
+    public void checkpoint() {
+        if (isCancelled()) {
+            throw new OcrCancelledException("OCR was cancelled");
+        }
+        if (remainingMillis() <= 0) {
+            throw new OcrTimeoutException("OCR did not finish within " + timeoutMs + " ms");
+        }
+    }
+}
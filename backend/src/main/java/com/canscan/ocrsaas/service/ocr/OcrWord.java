@@ -0,0 +1,15 @@
+package com.canscan.ocrsaas.service.ocr;
+
+/**
+ * A recognized word and its bounding box, in pixels of the recognized image.
+ */
+public record OcrWord(String text, int left, int top, int right, int bottom) {
+
+    public int width() {
+        return right - left;
+    }
+
+    public int height() {
+        return bottom - top;
+    }
+}
@@ -0,0 +1,126 @@
+package com.canscan.ocrsaas.service.ocr;
+
+import net.sourceforge.tess4j.util.ImageIOHelper;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Random access to the pages of an uploaded image or PDF. Pages are decoded
+ * lazily, one at a time, so a large file never has to be held in memory at once.
+ * Reads are serialized because neither ImageIO readers nor PDFBox renderers are thread-safe.
+ */
+public abstract class PageReader implements Closeable {
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F'};
+
+    public static PageReader open(File file, int pdfDpi) throws IOException {
+        if (isPdf(file)) {
+            return new PdfPageReader(file, pdfDpi);
+        }
+        return new ImagePageReader(file);
+    }
+
+    public abstract int getPageCount();
+
+    public abstract OcrPage read(int index) throws IOException;
+
+    private static boolean isPdf(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return Arrays.equals(in.readNBytes(PDF_MAGIC.length), PDF_MAGIC);
+        }
+    }
+
+    private static class ImagePageReader extends PageReader {
+
+        private final ImageInputStream input;
+        private final ImageReader reader;
+        private final int pageCount;
+
+        ImagePageReader(File file) throws IOException {
+            this.input = ImageIO.createImageInputStream(file);
+            if (input == null) {
+                throw new IOException("Cannot open image " + file);
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                input.close();
+                throw new IOException("Unsupported image format: " + file.getName());
+            }
+
+            this.reader = readers.next();
+            reader.setInput(input);
+            this.pageCount = reader.getNumImages(true);
+        }
+
+        @Override
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        @Override
+        public synchronized OcrPage read(int index) throws IOException {
+            BufferedImage image = reader.read(index);
+            IIOMetadata metadata = reader.getImageMetadata(index);
+            return new OcrPage(index, image, readDpi(new IIOImage(image, null, metadata)));
+        }
+
+        private int readDpi(IIOImage image) {
+            try {
+                String dpi = ImageIOHelper.readImageData(image).get("dpiX");
+                return dpi != null ? Integer.parseInt(dpi) : 0;
+            } catch (RuntimeException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            reader.dispose();
+            input.close();
+        }
+    }
+
+    private static class PdfPageReader extends PageReader {
+
+        private final PDDocument document;
+        private final PDFRenderer renderer;
+        private final int dpi;
+
+        PdfPageReader(File file, int dpi) throws IOException {
+            this.document = PDDocument.load(file);
+            this.renderer = new PDFRenderer(document);
+            this.dpi = dpi;
+        }
+
+        @Override
+        public int getPageCount() {
+            return document.getNumberOfPages();
+        }
+
+        @Override
+        public synchronized OcrPage read(int index) throws IOException {
+            return new OcrPage(index, renderer.renderImageWithDPI(index, dpi, ImageType.RGB), dpi);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            document.close();
+        }
+    }
+}
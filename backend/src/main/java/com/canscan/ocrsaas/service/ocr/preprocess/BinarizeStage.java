@@ -0,0 +1,39 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import net.sourceforge.tess4j.util.ImageHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Converts pages to 1-bit black and white. Off by default because Tesseract
+ * binarizes internally; enable it to compare results on clean scans.
+ */
+@Component
+@Order(50)
+public class BinarizeStage implements PreprocessingStage {
+
+    @Value("${app.ocr.preprocess.binarize.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public String getName() {
+        return "binarize";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public OcrPage apply(OcrPage page) {
+        if (page.image().getType() == BufferedImage.TYPE_BYTE_BINARY) {
+            return page;
+        }
+        return new OcrPage(page.index(), ImageHelper.convertImageToBinary(page.image()), page.dpi());
+    }
+}
@@ -0,0 +1,112 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Crops blank margins and dark scanner borders. A row or column counts as content
+ * when it is neither almost all background nor almost all ink.
+ */
+@Component
+@Order(40)
+public class BorderCropStage implements PreprocessingStage {
+
+    private static final int INK_THRESHOLD = 128;
+    private static final double MIN_INK_RATIO = 0.002;
+    private static final double MAX_INK_RATIO = 0.6;
+    private static final int SAMPLE_STEP = 2;
+
+    @Value("${app.ocr.preprocess.border-crop.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ocr.preprocess.border-crop.padding-px:16}")
+    private int padding;
+
+    @Override
+    public String getName() {
+        return "border-crop";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String describe() {
+        return "border-crop@" + padding;
+    }
+
+    @Override
+    public OcrPage apply(OcrPage page) {
+        BufferedImage image = page.image();
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        int top = 0;
+        while (top < height && !isContentRow(image, top)) {
+            top++;
+        }
+        int bottom = height - 1;
+        while (bottom > top && !isContentRow(image, bottom)) {
+            bottom--;
+        }
+        int left = 0;
+        while (left < width && !isContentColumn(image, left, top, bottom)) {
+            left++;
+        }
+        int right = width - 1;
+        while (right > left && !isContentColumn(image, right, top, bottom)) {
+            right--;
+        }
+
+        if (top >= bottom || left >= right) {
+            // Blank page: nothing sensible to crop to
+            return page;
+        }
+
+        int x = Math.max(0, left - padding);
+        int y = Math.max(0, top - padding);
+        int w = Math.min(width, right + padding + 1) - x;
+        int h = Math.min(height, bottom + padding + 1) - y;
+        if (w == width && h == height) {
+            return page;
+        }
+        return new OcrPage(page.index(), image.getSubimage(x, y, w, h), page.dpi());
+    }
+
+    private boolean isContentRow(BufferedImage image, int y) {
+        int ink = 0;
+        int samples = 0;
+        for (int x = 0; x < image.getWidth(); x += SAMPLE_STEP) {
+            ink += isInk(image, x, y) ? 1 : 0;
+            samples++;
+        }
+        return isContent(ink, samples);
+    }
+
+    private boolean isContentColumn(BufferedImage image, int x, int top, int bottom) {
+        int ink = 0;
+        int samples = 0;
+        for (int y = top; y <= bottom; y += SAMPLE_STEP) {
+            ink += isInk(image, x, y) ? 1 : 0;
+            samples++;
+        }
+        return isContent(ink, samples);
+    }
+
+    private boolean isContent(int ink, int samples) {
+        double ratio = (double) ink / samples;
+        return ratio >= MIN_INK_RATIO && ratio <= MAX_INK_RATIO;
+    }
+
+    private boolean isInk(BufferedImage image, int x, int y) {
+        int rgb = image.getRGB(x, y);
+        int luminance = (((rgb >> 16) & 0xff) * 299 + ((rgb >> 8) & 0xff) * 587 + (rgb & 0xff) * 114) / 1000;
+        return luminance < INK_THRESHOLD;
+    }
+}
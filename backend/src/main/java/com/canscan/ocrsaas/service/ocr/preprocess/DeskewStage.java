@@ -0,0 +1,47 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import com.recognition.software.jdeskew.ImageDeskew;
+import net.sourceforge.tess4j.util.ImageHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Detects the skew angle with a Hough transform and rotates the page level.
+ * Runs after downscaling because its cost grows with the pixel count.
+ */
+@Component
+@Order(30)
+public class DeskewStage implements PreprocessingStage {
+
+    @Value("${app.ocr.preprocess.deskew.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ocr.preprocess.deskew.min-angle:0.1}")
+    private double minAngle;
+
+    @Override
+    public String getName() {
+        return "deskew";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String describe() {
+        return "deskew@" + minAngle;
+    }
+
+    @Override
+    public OcrPage apply(OcrPage page) {
+        double angle = new ImageDeskew(page.image()).getSkewAngle();
+        if (Math.abs(angle) < minAngle) {
+            return page;
+        }
+        return new OcrPage(page.index(), ImageHelper.rotateImage(page.image(), -angle), page.dpi());
+    }
+}
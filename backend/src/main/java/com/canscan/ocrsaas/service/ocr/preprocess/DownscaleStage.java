@@ -0,0 +1,61 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import net.sourceforge.tess4j.util.ImageHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Scales oversized pages down to the target DPI. When the file carries no usable
+ * resolution (typical for phone photos) the page is assumed to be A4.
+ */
+@Component
+@Order(10)
+public class DownscaleStage implements PreprocessingStage {
+
+    private static final double A4_LONG_SIDE_INCHES = 11.69;
+
+    @Value("${app.ocr.preprocess.downscale.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ocr.preprocess.target-dpi:300}")
+    private int targetDpi;
+
+    @Override
+    public String getName() {
+        return "downscale";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String describe() {
+        return "downscale@" + targetDpi;
+    }
+
+    @Override
+    public OcrPage apply(OcrPage page) {
+        BufferedImage image = page.image();
+        int longSide = Math.max(image.getWidth(), image.getHeight());
+
+        // Below ~100 DPI the metadata is usually a screen default rather than the scan resolution
+        boolean knownDpi = page.dpi() >= 100;
+        double scale = knownDpi
+                ? (double) targetDpi / page.dpi()
+                : targetDpi * A4_LONG_SIDE_INCHES / longSide;
+
+        if (scale >= 1.0) {
+            return knownDpi ? page : new OcrPage(page.index(), image, (int) Math.round(longSide / A4_LONG_SIDE_INCHES));
+        }
+
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        return new OcrPage(page.index(), ImageHelper.getScaledInstance(image, width, height), targetDpi);
+    }
+}
@@ -0,0 +1,39 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import net.sourceforge.tess4j.util.ImageHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Converts colour pages to 8-bit grayscale, a third of the data Tesseract has to process for RGB input.
+ */
+@Component
+@Order(20)
+public class GrayscaleStage implements PreprocessingStage {
+
+    @Value("${app.ocr.preprocess.grayscale.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public String getName() {
+        return "grayscale";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public OcrPage apply(OcrPage page) {
+        int type = page.image().getType();
+        if (type == BufferedImage.TYPE_BYTE_GRAY || type == BufferedImage.TYPE_BYTE_BINARY) {
+            return page;
+        }
+        return new OcrPage(page.index(), ImageHelper.convertImageToGrayscale(page.image()), page.dpi());
+    }
+}
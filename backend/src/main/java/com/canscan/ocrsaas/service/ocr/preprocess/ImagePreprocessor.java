@@ -0,0 +1,46 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the enabled {@link PreprocessingStage}s in order, timing each one
+ * under the {@code ocr.preprocess.stage} metric.
+ */
+@Component
+@Slf4j
+public class ImagePreprocessor {
+
+    private final List<PreprocessingStage> stages;
+    private final Map<String, Timer> timers;
+
+    public ImagePreprocessor(List<PreprocessingStage> stages, MeterRegistry meterRegistry) {
+        this.stages = stages.stream().filter(PreprocessingStage::isEnabled).toList();
+        this.timers = this.stages.stream().collect(Collectors.toMap(PreprocessingStage::getName,
+                stage -> Timer.builder("ocr.preprocess.stage")
+                        .tag("stage", stage.getName())
+                        .register(meterRegistry)));
+
+        log.info("OCR preprocessing stages: {}", this.stages.stream().map(PreprocessingStage::getName).toList());
+    }
+
+    public String describe() {
+        return stages.stream().map(PreprocessingStage::describe).collect(Collectors.joining(","));
+    }
+
+    public OcrPage process(OcrPage page) {
+        OcrPage result = page;
+        for (PreprocessingStage stage : stages) {
+            OcrPage input = result;
+            result = timers.get(stage.getName()).record(() -> stage.apply(input));
+        }
+        return result;
+    }
+}
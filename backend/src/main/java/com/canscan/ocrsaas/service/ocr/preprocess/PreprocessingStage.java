@@ -0,0 +1,24 @@
+package com.canscan.ocrsaas.service.ocr.preprocess;
+
+import com.canscan.ocrsaas.service.ocr.OcrPage;
+
+/**
+ * One step of the image preprocessing pipeline run ahead of Tesseract.
+ * Stages are applied in {@link org.springframework.core.annotation.Order} order
+ * and each can be switched off with its {@code app.ocr.preprocess.<name>.enabled} flag.
+ */
+public interface PreprocessingStage {
+
+    String getName();
+
+    boolean isEnabled();
+
+    /**
+     * Name plus any parameter that changes the output, used to tell OCR results apart.
+     */
+    default String describe() {
+        return getName();
+    }
+
+    OcrPage apply(OcrPage page);
+}
@@ -0,0 +1,146 @@
+package com.canscan.ocrsaas.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Stores files under a directory of the local file system (the default backend).
+ */
+@Slf4j
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalStorageBackend(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public StorageUpload openUpload(String key) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        // Written under a temporary name and renamed on commit, so readers never see a partial file
+        Path partial = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        return new LocalUpload(partial, target);
+    }
+
+    @Override
+    public InputStream openRead(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream openRead(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Hard-links where the file system allows it, so copying a large file costs nothing.
+     */
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        Path source = resolve(sourceKey);
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            try (StorageUpload upload = openUpload(targetKey); FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+                long position = 0;
+                long size = in.size();
+                while (position < size) {
+                    position += in.transferTo(position, size - position, upload);
+                }
+                upload.commit();
+            }
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Storage key escapes the storage root: " + key);
+        }
+        return path;
+    }
+
+    private static final class LocalUpload implements StorageUpload {
+
+        private final Path partial;
+        private final Path target;
+        private final FileChannel channel;
+        private long bytesWritten;
+        private boolean committed;
+
+        LocalUpload(Path partial, Path target) throws IOException {
+            this.partial = partial;
+            this.target = target;
+            this.channel = FileChannel.open(partial, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = channel.write(src);
+            bytesWritten += written;
+            return written;
+        }
+
+        @Override
+        public void commit() throws IOException {
+            channel.close();
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(partial);
+            }
+        }
+    }
+}
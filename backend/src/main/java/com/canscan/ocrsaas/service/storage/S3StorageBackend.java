@@ -0,0 +1,238 @@
+package com.canscan.ocrsaas.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores files in an S3-compatible bucket (AWS S3, MinIO, ...). Uploads are streamed in
+ * multipart chunks of {@code partSize} bytes, so memory use does not grow with the file size.
+ */
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+    // S3 rejects multipart parts smaller than 5 MiB, except the last one
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+    private final int partSize;
+
+    public S3StorageBackend(S3Client s3, String bucket, String prefix, int partSize) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        if (prefix == null || prefix.isEmpty()) {
+            this.prefix = "";
+        } else {
+            this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        }
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+    }
+
+    @Override
+    public StorageUpload openUpload(String key) {
+        return new MultipartUpload(objectKey(key));
+    }
+
+    @Override
+    public InputStream openRead(String key) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream openRead(String key, long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            String range = "bytes=" + offset + "-" + (offset + length - 1);
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)).range(range));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(objectKey(key)));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Could not check " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not check " + key, e);
+        }
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        try {
+            return s3.headObject(b -> b.bucket(bucket).key(objectKey(key))).contentLength();
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("Could not stat " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not stat " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        try {
+            s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(objectKey(sourceKey))
+                    .destinationBucket(bucket).destinationKey(objectKey(targetKey)));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(sourceKey);
+        } catch (SdkException e) {
+            throw new IOException("Could not copy " + sourceKey + " to " + targetKey, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    private String objectKey(String key) {
+        return prefix + key;
+    }
+
+    /**
+     * Buffers one part at a time. Objects smaller than a part are sent with a single PUT;
+     * larger ones start a multipart upload on the first full part.
+     */
+    private final class MultipartUpload implements StorageUpload {
+
+        private final String objectKey;
+        private final ByteBuffer part;
+        private final List<CompletedPart> completedParts = new ArrayList<>();
+        private String uploadId;
+        private long bytesWritten;
+        private boolean open = true;
+        private boolean committed;
+
+        MultipartUpload(String objectKey) {
+            this.objectKey = objectKey;
+            this.part = ByteBuffer.allocate(partSize);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = 0;
+            while (src.hasRemaining()) {
+                int count = Math.min(src.remaining(), part.remaining());
+                ByteBuffer slice = src.slice(src.position(), count);
+                part.put(slice);
+                src.position(src.position() + count);
+                written += count;
+                if (!part.hasRemaining()) {
+                    flushPart();
+                }
+            }
+            bytesWritten += written;
+            return written;
+        }
+
+        private void flushPart() throws IOException {
+            try {
+                if (uploadId == null) {
+                    uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(objectKey)).uploadId();
+                }
+                int partNumber = completedParts.size() + 1;
+                part.flip();
+                String eTag = s3.uploadPart(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId).partNumber(partNumber),
+                        RequestBody.fromByteBuffer(part)).eTag();
+                completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                part.clear();
+            } catch (SdkException e) {
+                throw new IOException("Could not upload part of " + objectKey, e);
+            }
+        }
+
+        @Override
+        public void commit() throws IOException {
+            try {
+                if (uploadId == null) {
+                    part.flip();
+                    s3.putObject(b -> b.bucket(bucket).key(objectKey), RequestBody.fromByteBuffer(part));
+                } else {
+                    if (part.position() > 0) {
+                        flushPart();
+                    }
+                    s3.completeMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId)
+                            .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build()));
+                }
+                committed = true;
+                open = false;
+            } catch (SdkException e) {
+                throw new IOException("Could not complete upload of " + objectKey, e);
+            }
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            if (committed || !open) {
+                return;
+            }
+            open = false;
+            if (uploadId != null) {
+                try {
+                    s3.abortMultipartUpload(b -> b.bucket(bucket).key(objectKey).uploadId(uploadId));
+                } catch (SdkException e) {
+                    log.warn("Could not abort multipart upload {} of {}", uploadId, objectKey, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.canscan.ocrsaas.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where stored files live. Keys are the relative paths kept in the database, such as
+ * {@code originals/ab/cd/<file>}. Missing files are reported with {@link java.nio.file.NoSuchFileException}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Starts writing a new object. Nothing becomes visible under {@code key} until
+     * {@link StorageUpload#commit()}; closing an upload that was not committed discards it.
+     */
+    StorageUpload openUpload(String key) throws IOException;
+
+    InputStream openRead(String key) throws IOException;
+
+    InputStream openRead(String key, long offset, long length) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    long size(String key) throws IOException;
+
+    /**
+     * Deletes an object; deleting a missing object is not an error.
+     */
+    void delete(String key) throws IOException;
+
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * The object as a file on the local file system, when the backend keeps it there.
+     * Lets callers use zero-copy transfers and file-based readers without a temporary copy.
+     */
+    Optional<Path> localPath(String key);
+}
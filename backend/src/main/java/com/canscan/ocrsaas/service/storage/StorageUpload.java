@@ -0,0 +1,17 @@
+package com.canscan.ocrsaas.service.storage;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An object being written to a {@link StorageBackend}.
+ */
+public interface StorageUpload extends WritableByteChannel {
+
+    /**
+     * Publishes everything written so far under the upload's key.
+     */
+    void commit() throws IOException;
+
+    long getBytesWritten();
+}
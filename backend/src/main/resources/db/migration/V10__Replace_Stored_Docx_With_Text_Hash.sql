@@ -0,0 +1,14 @@
+-- O .docx passa a ser gerado sob demanda no download e guardado em cache, identificado pelo hash do texto extraído
+-- Hash SHA-256 do texto extraído atual
+ALTER TABLE documents ADD COLUMN text_hash VARCHAR(64);
+
+UPDATE documents
+SET text_hash = encode(sha256(convert_to(extracted_text, 'UTF8')), 'hex')
+WHERE extracted_text IS NOT NULL;
+
+-- Os arquivos .docx já gerados não são mais usados e são removidos pela limpeza em segundo plano
+INSERT INTO file_cleanup (file_path)
+SELECT DISTINCT doc_file_path FROM documents WHERE doc_file_path IS NOT NULL;
+
+ALTER TABLE documents DROP COLUMN doc_file_path;
+ALTER TABLE documents DROP COLUMN doc_content_hash;
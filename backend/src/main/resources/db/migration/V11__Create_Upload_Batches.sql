@@ -0,0 +1,28 @@
+-- Lotes de upload: vários arquivos (ou um ZIP) enviados em uma única requisição
+CREATE TABLE upload_batches (
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Usuário que enviou o lote
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+
+    -- Pasta de destino dos documentos do lote (opcional)
+    folder_id BIGINT REFERENCES folders(id) ON DELETE SET NULL,
+
+    -- Quantidade de arquivos recebidos e de arquivos recusados (tipo não suportado, tamanho excedido)
+    total_files INTEGER NOT NULL,
+    rejected_files INTEGER NOT NULL,
+
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_upload_batches_user_id ON upload_batches(user_id);
+
+-- Lote de origem do documento, quando enviado por upload em lote
+ALTER TABLE documents ADD COLUMN batch_id BIGINT REFERENCES upload_batches(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_documents_batch_id ON documents(batch_id) WHERE batch_id IS NOT NULL;
+
+-- Sequências com incremento 50: o Hibernate reserva 50 ids por chamada (otimizador pooled)
+-- e pode agrupar os INSERTs de documentos e jobs de OCR em lotes JDBC
+ALTER SEQUENCE documents_id_seq INCREMENT BY 50;
+ALTER SEQUENCE ocr_jobs_id_seq INCREMENT BY 50;
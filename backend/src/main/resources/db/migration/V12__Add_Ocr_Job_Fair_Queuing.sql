@@ -0,0 +1,29 @@
+-- Fila justa entre usuários (weighted fair queuing)
+-- Cada par (usuário, prioridade) é um fluxo; os jobs são executados em ordem de tempo virtual,
+-- que avança mais devagar para fluxos de peso maior
+
+-- Dono do job, copiado do documento para evitar o JOIN na fila
+ALTER TABLE ocr_jobs ADD COLUMN user_id BIGINT;
+
+UPDATE ocr_jobs j SET user_id = d.user_id FROM documents d WHERE d.id = j.document_id;
+
+ALTER TABLE ocr_jobs ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE ocr_jobs ADD FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+
+-- Classe de prioridade (INTERACTIVE para uploads individuais, BULK para uploads em lote)
+ALTER TABLE ocr_jobs ADD COLUMN priority VARCHAR(20) NOT NULL DEFAULT 'INTERACTIVE';
+
+-- Tempo virtual de término do job no seu fluxo; a fila é consumida em ordem crescente
+ALTER TABLE ocr_jobs ADD COLUMN virtual_time DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+-- Jobs já enfileirados: intercalados entre os usuários, na ordem em que chegaram
+UPDATE ocr_jobs j SET virtual_time = q.position
+FROM (SELECT id, row_number() OVER (PARTITION BY user_id ORDER BY id) AS position
+      FROM ocr_jobs WHERE status IN ('QUEUED', 'RUNNING')) q
+WHERE q.id = j.id;
+
+-- Índice usado pelos workers para buscar os próximos jobs, em ordem de tempo virtual
+CREATE INDEX idx_ocr_jobs_queued_virtual_time ON ocr_jobs(virtual_time, id) WHERE status = 'QUEUED';
+
+-- Índice para encontrar o último tempo virtual de um fluxo ao enfileirar
+CREATE INDEX idx_ocr_jobs_flow ON ocr_jobs(user_id, priority, virtual_time) WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,14 @@
+-- Lease dos jobs em execução: o worker renova o lease enquanto processa o documento;
+-- um lease vencido indica que o worker caiu ou travou, e o job volta para a fila
+
+ALTER TABLE ocr_jobs ADD COLUMN lease_expires_at TIMESTAMP;
+
+-- Jobs já em execução recebem um lease contado a partir do momento em que foram travados
+UPDATE ocr_jobs SET lease_expires_at = COALESCE(locked_at, CURRENT_TIMESTAMP) + INTERVAL '15 minutes'
+WHERE status = 'RUNNING';
+
+-- Índice usado pela varredura de leases vencidos
+CREATE INDEX idx_ocr_jobs_running_lease ON ocr_jobs(lease_expires_at) WHERE status = 'RUNNING';
+
+-- Índice usado pela varredura de documentos presos em PROCESSING
+CREATE INDEX idx_documents_processing ON documents(updated_at) WHERE status = 'PROCESSING';
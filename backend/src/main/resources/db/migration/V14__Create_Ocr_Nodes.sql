@@ -0,0 +1,20 @@
+-- Criação da tabela de nós de OCR
+-- Cada worker registra-se aqui e envia heartbeats; os jobs travados por um nó sem heartbeat recente voltam para a fila
+CREATE TABLE ocr_nodes (
+    -- Identificador do nó, o mesmo gravado em ocr_jobs.locked_by
+    id VARCHAR(255) PRIMARY KEY,
+
+    -- Status do nó (ACTIVE, DRAINING)
+    status VARCHAR(20) NOT NULL,
+
+    -- Capacidade do nó e jobs em execução no último heartbeat
+    threads INT NOT NULL,
+    running_jobs INT NOT NULL DEFAULT 0,
+
+    -- Início do processo e último heartbeat
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Índice usado pela varredura de jobs em execução, que procura o nó dono de cada job
+CREATE INDEX idx_ocr_jobs_running_locked_by ON ocr_jobs(locked_by) WHERE status = 'RUNNING';
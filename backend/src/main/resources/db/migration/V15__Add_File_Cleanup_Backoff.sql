@@ -0,0 +1,7 @@
+-- Backoff da limpeza de arquivos: uma remoção que falhou só é tentada de novo depois de um intervalo
+-- que dobra a cada tentativa, em vez de ser reprocessada a cada varredura
+
+ALTER TABLE file_cleanup ADD COLUMN next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- Índice usado pela varredura para buscar apenas os registros com tentativa vencida
+CREATE INDEX idx_file_cleanup_next_attempt ON file_cleanup(next_attempt_at);
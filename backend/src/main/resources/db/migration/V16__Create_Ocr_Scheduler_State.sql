@@ -0,0 +1,13 @@
+-- Tempo virtual do sistema da fila justa, persistido em uma única linha
+-- Avança para o tempo virtual de cada job reivindicado e nunca volta atrás, nem quando a fila esvazia;
+-- um fluxo novo começa a partir dele, e não a partir de zero
+CREATE TABLE ocr_scheduler_state (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    virtual_time DOUBLE PRECISION NOT NULL
+);
+
+-- Ponto de partida: o maior tempo virtual em execução, ou o menor da fila
+INSERT INTO ocr_scheduler_state (id, virtual_time)
+SELECT 1, COALESCE((SELECT MAX(virtual_time) FROM ocr_jobs WHERE status = 'RUNNING'),
+                   (SELECT MIN(virtual_time) FROM ocr_jobs WHERE status = 'QUEUED'),
+                   0);
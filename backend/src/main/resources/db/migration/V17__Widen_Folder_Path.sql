@@ -0,0 +1,3 @@
+-- Caminho materializado sem limite de tamanho: com VARCHAR(1024), uma hierarquia de pouco mais de cem níveis
+-- falhava ao mover ou criar pastas; a collation "C" continua sendo usada pelo índice de prefixo
+ALTER TABLE folders ALTER COLUMN path TYPE TEXT COLLATE "C";
@@ -0,0 +1,38 @@
+-- Criação da tabela de jobs de OCR
+-- Fila persistente de processamento, consumida pelos workers com SELECT ... FOR UPDATE SKIP LOCKED
+CREATE TABLE ocr_jobs (
+    -- Chave primária com auto-incremento
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Referência ao documento a ser processado
+    document_id BIGINT NOT NULL,
+
+    -- Status do job (QUEUED, RUNNING, DONE, FAILED)
+    status VARCHAR(20) NOT NULL,
+
+    -- Número de tentativas já realizadas
+    attempts INT NOT NULL DEFAULT 0,
+
+    -- Momento a partir do qual o job pode ser executado (usado para o backoff entre tentativas)
+    next_run_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    -- Worker que reservou o job e quando
+    locked_by VARCHAR(255),
+    locked_at TIMESTAMP,
+
+    -- Última mensagem de erro, para diagnóstico
+    last_error TEXT,
+
+    -- Timestamps para auditoria
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    -- Chaves estrangeiras
+    FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+);
+
+-- Índice usado pelos workers para buscar os próximos jobs a executar
+CREATE INDEX idx_ocr_jobs_status_next_run_at ON ocr_jobs(status, next_run_at);
+
+-- Índice para buscar jobs por documento
+CREATE INDEX idx_ocr_jobs_document_id ON ocr_jobs(document_id);
@@ -0,0 +1,9 @@
+-- Hash SHA-256 do arquivo original, calculado durante o upload
+-- Usado para reaproveitar o resultado do OCR de uploads repetidos
+ALTER TABLE documents ADD COLUMN content_hash VARCHAR(64);
+
+-- Identificação das configurações de OCR usadas para gerar o texto extraído
+ALTER TABLE documents ADD COLUMN ocr_settings VARCHAR(64);
+
+-- Índice para buscar documentos já processados com o mesmo conteúdo
+CREATE INDEX idx_documents_user_id_content_hash ON documents(user_id, content_hash);
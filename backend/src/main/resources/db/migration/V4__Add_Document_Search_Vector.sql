@@ -0,0 +1,12 @@
+-- Vetor de busca textual dos documentos, mantido pelo próprio PostgreSQL
+-- Combina as configurações em português e inglês; o nome tem peso maior que o texto extraído
+-- O texto é limitado para não ultrapassar o tamanho máximo de um tsvector em documentos muito longos
+ALTER TABLE documents ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('portuguese', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+    setweight(to_tsvector('portuguese', left(coalesce(extracted_text, ''), 200000)), 'B') ||
+    setweight(to_tsvector('english', left(coalesce(extracted_text, ''), 200000)), 'B')
+) STORED;
+
+-- Índice GIN para a busca textual
+CREATE INDEX idx_documents_search_vector ON documents USING GIN (search_vector);
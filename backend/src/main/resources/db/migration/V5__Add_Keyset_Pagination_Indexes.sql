@@ -0,0 +1,17 @@
+-- Índices compostos para a paginação por cursor (keyset)
+-- Cada índice segue exatamente a ordenação da listagem correspondente, para que a página N custe o mesmo que a primeira
+
+-- Documentos do usuário, mais recentes primeiro e por nome
+CREATE INDEX idx_documents_user_id_created_at_id ON documents(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_documents_user_id_name_id ON documents(user_id, name, id);
+
+-- Documentos de uma pasta, mais recentes primeiro e por nome
+CREATE INDEX idx_documents_folder_id_created_at_id ON documents(folder_id, created_at DESC, id DESC);
+CREATE INDEX idx_documents_folder_id_name_id ON documents(folder_id, name, id);
+
+-- Subpastas por nome
+CREATE INDEX idx_folders_parent_id_name_id ON folders(parent_id, name, id);
+
+-- Os índices simples ficam cobertos pelos compostos acima
+DROP INDEX idx_documents_user_id;
+DROP INDEX idx_documents_folder_id;
@@ -0,0 +1,39 @@
+-- Caminho materializado da hierarquia de pastas, no formato /raiz/.../pasta/ (ids separados por barra)
+-- Permite buscar uma subárvore inteira ou testar se uma pasta é descendente de outra com uma única comparação de prefixo
+-- Collation "C" para que o índice B-tree atenda consultas LIKE 'prefixo%'
+ALTER TABLE folders ADD COLUMN path VARCHAR(1024) COLLATE "C";
+
+-- Preenchimento das pastas existentes a partir das raízes
+WITH RECURSIVE tree AS (
+    SELECT id, '/' || id || '/' AS path
+    FROM folders
+    WHERE parent_id IS NULL
+    UNION ALL
+    SELECT f.id, t.path || f.id || '/'
+    FROM folders f
+    JOIN tree t ON f.parent_id = t.id
+)
+UPDATE folders f SET path = tree.path FROM tree WHERE f.id = tree.id;
+
+-- Pastas não alcançadas a partir de uma raiz fazem parte de um ciclo (ou estão abaixo de um)
+-- Elas passam a ser raízes, o que desfaz o ciclo sem perder nenhuma pasta
+UPDATE folders SET parent_id = NULL, path = '/' || id || '/' WHERE path IS NULL;
+
+ALTER TABLE folders ALTER COLUMN path SET NOT NULL;
+
+-- O caminho de uma nova pasta depende do seu id, então é calculado pelo banco na inserção
+-- Mudanças de pasta pai atualizam o caminho da subárvore inteira (FolderRepository.movePaths)
+CREATE FUNCTION folders_set_path() RETURNS trigger AS $$
+BEGIN
+    NEW.path := COALESCE((SELECT path FROM folders WHERE id = NEW.parent_id), '/') || NEW.id || '/';
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_folders_set_path
+    BEFORE INSERT ON folders
+    FOR EACH ROW EXECUTE FUNCTION folders_set_path();
+
+-- Índice para buscar subárvores por prefixo do caminho (substitui o índice simples por usuário)
+CREATE INDEX idx_folders_user_id_path ON folders(user_id, path);
+DROP INDEX idx_folders_user_id;
@@ -0,0 +1,18 @@
+-- Criação da tabela de limpeza de arquivos
+-- Exclusões em massa registram aqui os arquivos a remover do disco, que são apagados em lotes por um processo em segundo plano
+CREATE TABLE file_cleanup (
+    -- Chave primária com auto-incremento
+    id BIGSERIAL PRIMARY KEY,
+
+    -- Caminho do arquivo relativo ao diretório de uploads
+    file_path VARCHAR(255) NOT NULL,
+
+    -- Número de tentativas de remoção que falharam
+    attempts INTEGER NOT NULL DEFAULT 0,
+
+    -- Timestamp para auditoria
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Índice para verificar se um .docx ainda é usado por outro documento antes de removê-lo
+CREATE INDEX idx_documents_doc_file_path ON documents(doc_file_path);
@@ -0,0 +1,5 @@
+-- Tipo de conteúdo detectado pelos primeiros bytes do arquivo durante o upload
+ALTER TABLE documents ADD COLUMN content_type VARCHAR(100);
+
+-- Tamanho do arquivo original em bytes
+ALTER TABLE documents ADD COLUMN size_bytes BIGINT;
@@ -0,0 +1,2 @@
+-- Hash SHA-256 do arquivo .docx gerado, usado como ETag no download
+ALTER TABLE documents ADD COLUMN doc_content_hash VARCHAR(64);
@@ -0,0 +1,106 @@
+package com.canscan.ocrsaas.config.security;
+
+import com.canscan.ocrsaas.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Tokens validated per second by the request filter path.
+ * <ul>
+ *     <li>{@code legacy}: key and parser rebuilt per claim, token parsed three times (previous behaviour)</li>
+ *     <li>{@code singleParse}: one parse with the shared parser, verified-token cache disabled</li>
+ *     <li>{@code cached}: repeat request with a token already in the verified-token cache</li>
+ * </ul>
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    private static final String SECRET = "benchmark_secret_key_that_is_long_enough_for_hmac_sha_256";
+
+    private JwtTokenUtil singleParseUtil;
+    private JwtTokenUtil cachedUtil;
+    private String token;
+
+    @Setup
+    public void setup() {
+        singleParseUtil = createUtil(0);
+        cachedUtil = createUtil(10_000);
+
+        User user = User.builder()
+                .id(42L)
+                .username("benchmark")
+                .role(User.Role.ROLE_USER)
+                .build();
+        token = cachedUtil.generateToken(user);
+        cachedUtil.validate(token);
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        String username = legacyExtract(token, Claims::getSubject);
+        String subject = legacyExtract(token, Claims::getSubject);
+        Date expiration = legacyExtract(token, Claims::getExpiration);
+        return username.equals(subject) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public Optional<TokenClaims> singleParse() {
+        return singleParseUtil.validate(token);
+    }
+
+    @Benchmark
+    public Optional<TokenClaims> cached() {
+        return cachedUtil.validate(token);
+    }
+
+    private static <T> T legacyExtract(String token, Function<Claims, T> resolver) {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return resolver.apply(claims);
+    }
+
+    private static JwtTokenUtil createUtil(long cacheMaxSize) {
+        JwtTokenUtil util = new JwtTokenUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expirationMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(util, "cacheMaxSize", cacheMaxSize);
+        util.init();
+        return util;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
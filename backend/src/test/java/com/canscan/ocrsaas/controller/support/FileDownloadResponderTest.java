@@ -0,0 +1,180 @@
+package com.canscan.ocrsaas.controller.support;
+
+import com.canscan.ocrsaas.service.FileDownload;
+import com.canscan.ocrsaas.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FileDownloadResponderTest {
+
+    private static final String SHA = "abc123";
+
+    private final FileDownloadResponder responder = new FileDownloadResponder(mock(FileStorageService.class));
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @TempDir
+    Path dir;
+
+    private FileDownload download;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Files.writeString(dir.resolve("file.txt"), "0123456789", StandardCharsets.US_ASCII);
+        download = new FileDownload(null, file, null, "file.txt", "text/plain", SHA, 10);
+    }
+
+    @Test
+    void servesWholeFileWithoutRange() throws IOException {
+        responder.respond(download, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + SHA + "\"");
+    }
+
+    @Test
+    void servesSingleRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        responder.respond(download, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void servesSuffixAndOpenEndedRanges() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        responder.respond(download, request, response);
+        assertThat(response.getContentAsString()).isEqualTo("789");
+
+        MockHttpServletRequest openEnded = new MockHttpServletRequest();
+        MockHttpServletResponse openEndedResponse = new MockHttpServletResponse();
+        openEnded.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        responder.respond(download, openEnded, openEndedResponse);
+        assertThat(openEndedResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 8-9/10");
+        assertThat(openEndedResponse.getContentAsString()).isEqualTo("89");
+    }
+
+    @Test
+    void clampsRangeEndToTheFileSize() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-100");
+
+        responder.respond(download, request, response);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-9/10");
+        assertThat(response.getContentAsString()).isEqualTo("56789");
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+
+        responder.respond(download, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void malformedAndMultipleRangesGetTheWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+        responder.respond(download, request, response);
+        assertThat(response.getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest malformed = new MockHttpServletRequest();
+        MockHttpServletResponse malformedResponse = new MockHttpServletResponse();
+        malformed.addHeader(HttpHeaders.RANGE, "lines=1-2");
+        responder.respond(download, malformed, malformedResponse);
+        assertThat(malformedResponse.getStatus()).isEqualTo(200);
+        assertThat(malformedResponse.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+
+        responder.respond(download, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void matchingIfRangeServesTheRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"" + SHA + "\"");
+
+        responder.respond(download, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"x\", W/\"" + SHA + "\"");
+
+        responder.respond(download, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void sendfileIsHandedTheRange() throws IOException {
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        responder.respond(download, request, response);
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(2L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(6L);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void openChannelIsServedAndClosedInsteadOfSendfile() throws IOException {
+        FileChannel channel = FileChannel.open(download.localPath(), StandardOpenOption.READ);
+        Files.delete(download.localPath());
+        FileDownload open = new FileDownload(null, download.localPath(), channel, "file.txt", "text/plain", SHA, 10);
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        responder.respond(open, request, response);
+
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    @Test
+    void openChannelIsClosedOnNotModified() throws IOException {
+        FileChannel channel = FileChannel.open(download.localPath(), StandardOpenOption.READ);
+        FileDownload open = new FileDownload(null, download.localPath(), channel, "file.txt", "text/plain", SHA, 10);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + SHA + "\"");
+
+        responder.respond(open, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(channel.isOpen()).isFalse();
+    }
+}
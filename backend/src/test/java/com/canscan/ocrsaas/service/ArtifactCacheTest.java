@@ -0,0 +1,84 @@
+package com.canscan.ocrsaas.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArtifactCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final ArtifactCache cache = new ArtifactCache(new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(cache, "cacheDir", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxSize", DataSize.ofBytes(10));
+        cache.init();
+    }
+
+    @Test
+    void rendersOnceAndServesHits() throws IOException {
+        AtomicInteger renders = new AtomicInteger();
+        ArtifactCache.ArtifactRenderer renderer = out -> {
+            renders.incrementAndGet();
+            out.write("abc".getBytes(StandardCharsets.US_ASCII));
+        };
+
+        try (ArtifactCache.CachedArtifact first = cache.get("txt/a", renderer);
+             ArtifactCache.CachedArtifact second = cache.get("txt/a", renderer)) {
+            assertThat(read(second)).isEqualTo("abc");
+            assertThat(second.sha256()).isEqualTo(first.sha256());
+            assertThat(second.size()).isEqualTo(3);
+        }
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void evictedArtifactStaysReadableWhileOpen() throws IOException {
+        try (ArtifactCache.CachedArtifact open = cache.get("txt/a", out -> out.write("12345678".getBytes(StandardCharsets.US_ASCII)))) {
+            cache.get("txt/b", out -> out.write("87654321".getBytes(StandardCharsets.US_ASCII))).close();
+
+            assertThat(Files.exists(open.path())).isFalse();
+            assertThat(read(open)).isEqualTo("12345678");
+        }
+    }
+
+    @Test
+    void fileRemovedBehindTheCacheIsRenderedAgain() throws IOException {
+        Path path;
+        try (ArtifactCache.CachedArtifact artifact = cache.get("txt/a", out -> out.write('x'))) {
+            path = artifact.path();
+        }
+        Files.delete(path);
+
+        try (ArtifactCache.CachedArtifact artifact = cache.get("txt/a", out -> out.write('y'))) {
+            assertThat(read(artifact)).isEqualTo("y");
+        }
+    }
+
+    @Test
+    void rejectsKeysOutsideTheCache() {
+        assertThatThrownBy(() -> cache.get("../a", out -> { })).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String read(ArtifactCache.CachedArtifact artifact) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) artifact.size());
+        artifact.channel().read(buffer, 0);
+        return new String(buffer.array(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,136 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.dto.BatchItemDto;
+import com.canscan.ocrsaas.dto.UploadBatchDto;
+import com.canscan.ocrsaas.exception.OcrOverloadedException;
+import com.canscan.ocrsaas.model.UploadBatch;
+import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.repository.FolderRepository;
+import com.canscan.ocrsaas.repository.UploadBatchRepository;
+import com.canscan.ocrsaas.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchUploadServiceTest {
+
+    private final UploadBatchRepository uploadBatchRepository = mock(UploadBatchRepository.class);
+    private final UserService userService = mock(UserService.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final OcrJobService ocrJobService = mock(OcrJobService.class);
+    private final OcrAdmissionController ocrAdmissionController = mock(OcrAdmissionController.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final BatchUploadService batchUploadService = new BatchUploadService(uploadBatchRepository,
+            mock(DocumentRepository.class), mock(FolderRepository.class), mock(UserRepository.class), userService,
+            fileStorageService, ocrJobService, ocrAdmissionController, transactionTemplate);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 3);
+        ReflectionTestUtils.setField(batchUploadService, "chunkSize", 2);
+        ReflectionTestUtils.setField(batchUploadService, "maxFileSize", DataSize.ofMegabytes(1));
+
+        when(userService.getAuthenticatedUser()).thenReturn(User.builder().id(1L).build());
+        when(uploadBatchRepository.save(any())).thenReturn(UploadBatch.builder().id(10L).build());
+        when(fileStorageService.storeStream(any(), anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            ((InputStream) invocation.getArgument(0)).readAllBytes();
+            String name = invocation.getArgument(1);
+            return new StoredFile("originals/" + name, "sha", 1, "image/png");
+        });
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void zipPastTheFileLimitIsTruncatedWithOneItem() throws IOException {
+        AtomicInteger bytesRead = new AtomicInteger();
+        byte[] zip = zip(10);
+        InputStream body = new ByteArrayInputStream(zip) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int read = super.read(b, off, len);
+                bytesRead.addAndGet(Math.max(read, 0));
+                return read;
+            }
+        };
+
+        UploadBatchDto batch = batchUploadService.uploadZip(body, null);
+
+        assertThat(batch.getItems()).hasSize(4);
+        assertThat(batch.getRejectedFiles()).isEqualTo(1);
+        BatchItemDto truncated = batch.getItems().get(3);
+        assertThat(truncated.getStatus()).isEqualTo(BatchItemDto.STATUS_REJECTED);
+        assertThat(truncated.getName()).isEqualTo("page-3.png");
+        verify(fileStorageService, times(3)).storeStream(any(), anyString(), anyString(), anyLong());
+        assertThat(bytesRead.get()).isLessThan(zip.length);
+    }
+
+    @Test
+    void refusedChunkAndEverythingAfterItIsRejected() throws IOException {
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 100);
+        doNothing().doThrow(new OcrOverloadedException(30)).when(ocrAdmissionController).admit(anyInt());
+
+        UploadBatchDto batch = batchUploadService.uploadZip(new ByteArrayInputStream(zip(10)), null);
+
+        assertThat(batch.getItems()).extracting(BatchItemDto::getStatus)
+                .containsExactly("PENDING", "PENDING", BatchItemDto.STATUS_REJECTED, BatchItemDto.STATUS_REJECTED,
+                        BatchItemDto.STATUS_REJECTED);
+        assertThat(batch.getItems().get(4).getName()).isEqualTo("page-4.png");
+        verify(ocrAdmissionController, times(2)).admit(2);
+        verify(fileStorageService).deleteFile("originals/page-2.png");
+        verify(fileStorageService).deleteFile("originals/page-3.png");
+        verify(ocrJobService, times(1)).enqueueAll(any(), any());
+    }
+
+    @Test
+    void fullQueueFailsTheUploadBeforeReadingIt() {
+        doThrow(new OcrOverloadedException(30)).when(ocrAdmissionController).checkCapacity();
+
+        assertThatThrownBy(() -> batchUploadService.uploadZip(new ByteArrayInputStream(new byte[0]), null))
+                .isInstanceOf(OcrOverloadedException.class);
+        verify(uploadBatchRepository, never()).save(any());
+    }
+
+    private static byte[] zip(int files) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < files; i++) {
+                zip.putNextEntry(new ZipEntry("page-" + i + ".png"));
+                zip.write(new byte[4096]);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    @Test
+    void decodesWhatItEncoded() {
+        String cursor = CursorCodec.encode("Relat\u00f3rio 1/2", 42L, 0.5f);
+
+        String[] parts = CursorCodec.decode(cursor, 3);
+
+        assertThat(parts).containsExactly("Relat\u00f3rio 1/2", "42", "0.5");
+        assertThat(CursorCodec.parseLong(parts[1])).isEqualTo(42L);
+        assertThat(CursorCodec.parseFloat(parts[2])).isEqualTo(0.5f);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = CursorCodec.encode("??>>??", 1L);
+
+        assertThat(cursor).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void emptyValuesSurviveTheRoundTrip() {
+        assertThat(CursorCodec.decode(CursorCodec.encode("", 7L), 2)).containsExactly("", "7");
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertThatThrownBy(() -> CursorCodec.decode("not a cursor!", 2))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void rejectsCursorWithAnotherNumberOfValues() {
+        String cursor = CursorCodec.encode("name", 1L);
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 3))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsNonNumericValues() {
+        String forged = Base64.getUrlEncoder().encodeToString("abc\u0000x".getBytes());
+        String[] parts = CursorCodec.decode(forged, 2);
+
+        assertThatThrownBy(() -> CursorCodec.parseLong(parts[0])).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> CursorCodec.parseFloat(parts[1])).isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.FileStorageException;
+import com.canscan.ocrsaas.model.FileCleanup;
+import com.canscan.ocrsaas.repository.FileCleanupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileCleanupServiceTest {
+
+    private final FileCleanupRepository fileCleanupRepository = mock(FileCleanupRepository.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final FileCleanupService fileCleanupService = new FileCleanupService(fileCleanupRepository, fileStorageService);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileCleanupService, "maxAttempts", 5);
+        ReflectionTestUtils.setField(fileCleanupService, "backoffMs", 1000L);
+        ReflectionTestUtils.setField(fileCleanupService, "maxBackoffMs", 5000L);
+    }
+
+    @Test
+    void deletedFilesAreRemovedFromTheTable() {
+        FileCleanup cleanup = FileCleanup.builder().id(1L).filePath("a.png").build();
+        when(fileCleanupRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(cleanup));
+
+        assertThat(fileCleanupService.sweepBatch(10)).isEqualTo(1);
+
+        verify(fileCleanupRepository).delete(cleanup);
+    }
+
+    @Test
+    void failedDeletionBacksOffExponentially() {
+        FileCleanup cleanup = FileCleanup.builder().id(1L).filePath("a.png").attempts(2).build();
+        when(fileCleanupRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(cleanup));
+        doThrow(new FileStorageException("busy")).when(fileStorageService).deleteFile("a.png");
+
+        assertThat(fileCleanupService.sweepBatch(10)).isZero();
+
+        assertThat(cleanup.getAttempts()).isEqualTo(3);
+        assertThat(Duration.between(LocalDateTime.now(), cleanup.getNextAttemptAt()).toMillis()).isCloseTo(4000L, within(500L));
+        verify(fileCleanupRepository, never()).delete(cleanup);
+    }
+
+    @Test
+    void backoffIsCapped() {
+        FileCleanup cleanup = FileCleanup.builder().id(1L).filePath("a.png").attempts(3).build();
+        ReflectionTestUtils.setField(fileCleanupService, "maxAttempts", 100);
+        when(fileCleanupRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(cleanup));
+        doThrow(new FileStorageException("busy")).when(fileStorageService).deleteFile("a.png");
+
+        fileCleanupService.sweepBatch(10);
+
+        assertThat(Duration.between(LocalDateTime.now(), cleanup.getNextAttemptAt()).toMillis()).isCloseTo(5000L, within(500L));
+    }
+
+    @Test
+    void lastFailedAttemptGivesUp() {
+        FileCleanup cleanup = FileCleanup.builder().id(1L).filePath("a.png").attempts(4).build();
+        when(fileCleanupRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(cleanup));
+        doThrow(new FileStorageException("gone")).when(fileStorageService).deleteFile("a.png");
+
+        assertThat(fileCleanupService.sweepBatch(10)).isEqualTo(1);
+
+        verify(fileCleanupRepository).delete(cleanup);
+    }
+}
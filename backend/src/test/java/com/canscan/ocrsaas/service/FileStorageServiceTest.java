@@ -0,0 +1,62 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.service.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileStorageServiceTest {
+
+    private final StorageBackend storageBackend = mock(StorageBackend.class);
+    private final FileStorageService fileStorageService = new FileStorageService(storageBackend);
+
+    @Test
+    void readOfAnExistingFileNeedsNoExistenceCheck() throws IOException {
+        InputStream in = InputStream.nullInputStream();
+        when(storageBackend.openRead("originals/file.png")).thenReturn(in);
+
+        assertThat(fileStorageService.openRead("originals/file.png")).isSameAs(in);
+
+        verify(storageBackend, never()).exists(anyString());
+    }
+
+    @Test
+    void movedFlatFileIsReadFromItsShardedKey() throws IOException {
+        String sharded = FileStorageService.toShardedPath("originals/file.png");
+        when(storageBackend.size("originals/file.png")).thenThrow(new NoSuchFileException("originals/file.png"));
+        when(storageBackend.size(sharded)).thenReturn(7L);
+
+        assertThat(fileStorageService.size("originals/file.png")).isEqualTo(7);
+
+        verify(storageBackend, never()).exists(anyString());
+    }
+
+    @Test
+    void missingShardedFileIsNotLookedUpAgain() throws IOException {
+        String sharded = FileStorageService.shardedPath("originals", "file.png");
+        when(storageBackend.size(sharded)).thenThrow(new NoSuchFileException(sharded));
+
+        assertThatThrownBy(() -> fileStorageService.size(sharded)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void deleteOfAMovedFlatFileRemovesTheShardedCopy() throws IOException {
+        String sharded = FileStorageService.toShardedPath("originals/file.png");
+        when(storageBackend.exists("originals/file.png")).thenReturn(false);
+
+        fileStorageService.deleteFile("originals/file.png");
+
+        verify(storageBackend).delete(sharded);
+        verify(storageBackend, never()).exists(sharded);
+    }
+}
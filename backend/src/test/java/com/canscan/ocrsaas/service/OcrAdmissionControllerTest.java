@@ -0,0 +1,150 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.exception.OcrOverloadedException;
+import com.canscan.ocrsaas.repository.OcrJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OcrAdmissionControllerTest {
+
+    private final OcrJobRepository ocrJobRepository = mock(OcrJobRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OcrAdmissionController controller = new OcrAdmissionController(ocrJobRepository, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "maxQueueDepth", 10L);
+        ReflectionTestUtils.setField(controller, "refreshMs", 60_000L);
+        ReflectionTestUtils.setField(controller, "retryAfterSeconds", 30L);
+        controller.init();
+    }
+
+    @Test
+    void admitsUpToTheQueueDepth() {
+        when(ocrJobRepository.countOutstanding()).thenReturn(7L);
+
+        controller.admit(3);
+
+        assertThatThrownBy(() -> controller.admit(1))
+                .isInstanceOf(OcrOverloadedException.class)
+                .satisfies(e -> assertThat(((OcrOverloadedException) e).getRetryAfterSeconds()).isEqualTo(30L));
+        assertThat(meterRegistry.get("ocr.admission.requests").tag("result", "admitted").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ocr.admission.requests").tag("result", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void releasedFilesFreeTheirPlaces() {
+        when(ocrJobRepository.countOutstanding()).thenReturn(9L);
+
+        controller.admit(1);
+        controller.release(1);
+
+        assertThatCode(() -> controller.admit(1)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void admittedFilesCountUntilTheNextRefresh() {
+        when(ocrJobRepository.countOutstanding()).thenReturn(0L);
+
+        controller.admit(4);
+        controller.admit(4);
+
+        assertThatThrownBy(() -> controller.admit(4)).isInstanceOf(OcrOverloadedException.class);
+        verify(ocrJobRepository, times(1)).countOutstanding();
+        assertThat(meterRegistry.get("ocr.admission.queue.depth").gauge().value()).isEqualTo(8);
+    }
+
+    @Test
+    void rejectedBatchDoesNotTakeCapacity() {
+        when(ocrJobRepository.countOutstanding()).thenReturn(5L);
+
+        assertThatThrownBy(() -> controller.admit(6)).isInstanceOf(OcrOverloadedException.class);
+
+        assertThatCode(() -> controller.admit(5)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void staleDepthIsReadAgain() {
+        ReflectionTestUtils.setField(controller, "refreshMs", 0L);
+        when(ocrJobRepository.countOutstanding()).thenReturn(10L, 0L);
+
+        assertThatThrownBy(() -> controller.admit(1)).isInstanceOf(OcrOverloadedException.class);
+
+        assertThatCode(() -> controller.admit(1)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void concurrentRequestsNeverOvershootTheLimit() throws Exception {
+        ReflectionTestUtils.setField(controller, "maxQueueDepth", 1000L);
+        when(ocrJobRepository.countOutstanding()).thenReturn(0L);
+        controller.admit(0);
+
+        AtomicInteger admittedFiles = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 500; j++) {
+                        try {
+                            controller.admit(1);
+                            admittedFiles.incrementAndGet();
+                        } catch (OcrOverloadedException e) {
+                            // Expected once the queue is full
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> request : requests) {
+                request.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(admittedFiles).hasValue(1000);
+    }
+
+    @Test
+    void capacityCheckReservesNothing() {
+        when(ocrJobRepository.countOutstanding()).thenReturn(9L);
+
+        controller.checkCapacity();
+        controller.checkCapacity();
+        controller.admit(1);
+
+        assertThatThrownBy(controller::checkCapacity).isInstanceOf(OcrOverloadedException.class);
+    }
+
+    @Test
+    void zeroDepthDisablesAdmissionControl() {
+        ReflectionTestUtils.setField(controller, "maxQueueDepth", 0L);
+
+        controller.admit(1_000_000);
+
+        verify(ocrJobRepository, never()).countOutstanding();
+    }
+}
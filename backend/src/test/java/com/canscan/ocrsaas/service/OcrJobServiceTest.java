@@ -0,0 +1,209 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.model.Document;
+import com.canscan.ocrsaas.model.OcrJob;
+import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.repository.OcrJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class OcrJobServiceTest {
+
+    private final OcrJobRepository ocrJobRepository = mock(OcrJobRepository.class);
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final OcrJobService ocrJobService =
+            new OcrJobService(ocrJobRepository, documentRepository, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ocrJobService, "interactiveWeight", 4.0);
+        ReflectionTestUtils.setField(ocrJobService, "bulkWeight", 1.0);
+        ReflectionTestUtils.setField(ocrJobService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(ocrJobService, "backoffMs", 5000L);
+        ReflectionTestUtils.setField(ocrJobService, "maxBackoffMs", 300000L);
+        when(ocrJobRepository.save(any(OcrJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void bulkImportAdvancesItsFlowOneUnitPerDocument() {
+        List<OcrJob> jobs = enqueueBulk(user(1L), 3);
+
+        assertThat(jobs).extracting(OcrJob::getVirtualTime).containsExactly(1.0, 2.0, 3.0);
+    }
+
+    @Test
+    void singleUploadOfAnotherUserOvertakesABulkImport() {
+        List<OcrJob> queue = new ArrayList<>(enqueueBulk(user(1L), 100));
+
+        OcrJob upload = ocrJobService.enqueue(document(user(2L)), OcrJob.Priority.BULK);
+        queue.add(upload);
+
+        queue.sort(Comparator.comparingDouble(OcrJob::getVirtualTime));
+        assertThat(queue.indexOf(upload)).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void flowsOfEqualWeightInterleave() {
+        List<OcrJob> queue = new ArrayList<>(enqueueBulk(user(1L), 3));
+        queue.addAll(enqueueBulk(user(2L), 3));
+
+        queue.sort(Comparator.comparingDouble(OcrJob::getVirtualTime));
+        assertThat(queue).extracting(job -> job.getUser().getId()).containsExactly(1L, 2L, 1L, 2L, 1L, 2L);
+    }
+
+    @Test
+    void interactiveFlowAdvancesByItsWeight() {
+        OcrJob interactive = ocrJobService.enqueue(document(user(1L)), OcrJob.Priority.INTERACTIVE);
+
+        assertThat(interactive.getVirtualTime()).isEqualTo(0.25);
+    }
+
+    @Test
+    void flowWithQueuedWorkContinuesAfterIt() {
+        when(ocrJobRepository.lockSystemVirtualTime()).thenReturn(2.0);
+        when(ocrJobRepository.findFlowVirtualTime(1L, OcrJob.Priority.BULK)).thenReturn(10.0);
+
+        OcrJob job = ocrJobService.enqueue(document(user(1L)), OcrJob.Priority.BULK);
+
+        assertThat(job.getVirtualTime()).isEqualTo(11.0);
+    }
+
+    @Test
+    void idleFlowStartsAtTheSystemVirtualTime() {
+        when(ocrJobRepository.lockSystemVirtualTime()).thenReturn(50.0);
+        when(ocrJobRepository.findFlowVirtualTime(1L, OcrJob.Priority.BULK)).thenReturn(3.0);
+
+        OcrJob job = ocrJobService.enqueue(document(user(1L)), OcrJob.Priority.BULK);
+
+        assertThat(job.getVirtualTime()).isEqualTo(51.0);
+    }
+
+    @Test
+    void completeIsFencedByAttemptAndWorker() {
+        ocrJobService.complete(new OcrJobAttempt(7L, 70L, 2, "node-a"));
+
+        verify(ocrJobRepository).endAttempt(eq(7L), eq(2), eq("node-a"), eq(OcrJob.Status.DONE),
+                any(), isNull(), any());
+    }
+
+    @Test
+    void retryableFailureRequeuesTheJobAndItsDocument() {
+        when(ocrJobRepository.endAttempt(eq(7L), eq(1), eq("node-a"), eq(OcrJob.Status.QUEUED),
+                any(), eq("boom"), any())).thenReturn(1);
+
+        ocrJobService.fail(new OcrJobAttempt(7L, 70L, 1, "node-a"), new RuntimeException("boom"), true);
+
+        verify(documentRepository).updateOpenStatus(eq(70L), eq(Document.Status.PENDING), any());
+    }
+
+    @Test
+    void failureOfAStaleAttemptLeavesTheDocumentAlone() {
+        when(ocrJobRepository.endAttempt(any(), anyInt(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        ocrJobService.fail(new OcrJobAttempt(7L, 70L, 3, "node-a"), new RuntimeException("boom"), false);
+
+        verify(ocrJobRepository).endAttempt(eq(7L), eq(3), eq("node-a"), eq(OcrJob.Status.FAILED),
+                any(), eq("boom"), any());
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    void releaseOfAStaleAttemptLeavesTheDocumentAlone() {
+        ocrJobService.release(new OcrJobAttempt(7L, 70L, 1, "node-a"));
+
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    void drainedQueueDoesNotSendARunningFlowBehindNewFlows() {
+        AtomicReference<Double> systemTime = new AtomicReference<>(0.0);
+        when(ocrJobRepository.lockSystemVirtualTime()).thenAnswer(invocation -> systemTime.get());
+        when(ocrJobRepository.advanceSystemVirtualTime(anyDouble()))
+                .thenAnswer(invocation -> {
+                    systemTime.accumulateAndGet(invocation.getArgument(0), Math::max);
+                    return 1;
+                });
+        User busy = user(1L);
+        OcrJob running = OcrJob.builder().id(7L).document(document(busy)).user(busy).status(OcrJob.Status.QUEUED)
+                .priority(OcrJob.Priority.BULK).virtualTime(500.0).createdAt(LocalDateTime.now()).build();
+        when(ocrJobRepository.findRunnableForUpdate(any(), anyInt())).thenReturn(List.of(running));
+
+        // The flow's last job is claimed and the queue is empty, but the job is still running
+        ocrJobService.claimJobs("node-a", 1);
+        when(ocrJobRepository.findFlowVirtualTime(1L, OcrJob.Priority.BULK)).thenReturn(500.0);
+
+        OcrJob newFlow = ocrJobService.enqueue(document(user(2L)), OcrJob.Priority.BULK);
+        OcrJob runningFlow = ocrJobService.enqueue(document(busy), OcrJob.Priority.BULK);
+
+        assertThat(newFlow.getVirtualTime()).isEqualTo(501.0);
+        assertThat(runningFlow.getVirtualTime()).isEqualTo(501.0);
+    }
+
+    // The worker fails the job when complete() throws after the document text was committed
+    @Test
+    void failureAfterTheDocumentCompletedOnlyMovesAnOpenDocument() {
+        when(ocrJobRepository.endAttempt(eq(7L), eq(1), eq("node-a"), eq(OcrJob.Status.FAILED),
+                any(), any(), any())).thenReturn(1);
+
+        ocrJobService.fail(new OcrJobAttempt(7L, 70L, 1, "node-a"), new RuntimeException("boom"), false);
+
+        verify(documentRepository).updateOpenStatus(eq(70L), eq(Document.Status.FAILED), any());
+        verifyNoMoreInteractions(documentRepository);
+    }
+
+    // The node died between committing the document text and ending the job
+    @Test
+    void recoveryAfterTheDocumentCompletedOnlyMovesAnOpenDocument() {
+        User user = user(1L);
+        OcrJob job = OcrJob.builder().id(7L).document(Document.builder().id(70L).user(user).build()).user(user)
+                .status(OcrJob.Status.RUNNING).attempts(1).lockedBy("node-a").build();
+        when(ocrJobRepository.findExpiredLeasesForUpdate(10)).thenReturn(List.of(job));
+
+        assertThat(ocrJobService.recoverExpiredLeases(10)).isEqualTo(1);
+
+        assertThat(job.getStatus()).isEqualTo(OcrJob.Status.QUEUED);
+        verify(documentRepository).updateOpenStatus(eq(70L), eq(Document.Status.PENDING), any());
+        verifyNoMoreInteractions(documentRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OcrJob> enqueueBulk(User user, int documents) {
+        ocrJobService.enqueueAll(IntStream.range(0, documents).mapToObj(i -> document(user)).toList(), OcrJob.Priority.BULK);
+
+        ArgumentCaptor<List<OcrJob>> saved = ArgumentCaptor.forClass(List.class);
+        verify(ocrJobRepository, atLeastOnce()).saveAll(saved.capture());
+        return saved.getValue();
+    }
+
+    private static User user(Long id) {
+        return User.builder().id(id).build();
+    }
+
+    private static Document document(User user) {
+        return Document.builder().user(user).build();
+    }
+}
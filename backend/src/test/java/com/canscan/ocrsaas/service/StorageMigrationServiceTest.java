@@ -0,0 +1,34 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.service.StorageMigrationService.Relocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageMigrationServiceTest {
+
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final StorageMigrationService storageMigrationService = new StorageMigrationService(documentRepository);
+
+    @Test
+    void returnsOnlyTheRelocationsWhoseRowWasSwitchedOver() {
+        Relocation moved = new Relocation(1L, "originals/abcd.png", "originals/ab/cd/abcd.png");
+        Relocation deleted = new Relocation(2L, "originals/efgh.png", "originals/ef/gh/efgh.png");
+        when(documentRepository.relocateOriginalFile(1L, moved.flatPath(), moved.shardedPath())).thenReturn(1);
+
+        assertThat(storageMigrationService.relocate(List.of(moved, deleted))).containsExactly(moved);
+    }
+
+    @Test
+    void rowAlreadyPointingAtTheShardedCopyCountsAsRelocated() {
+        Relocation relocation = new Relocation(1L, "originals/abcd.png", "originals/ab/cd/abcd.png");
+        when(documentRepository.existsByIdAndOriginalFilePath(1L, relocation.shardedPath())).thenReturn(true);
+
+        assertThat(storageMigrationService.relocate(List.of(relocation))).containsExactly(relocation);
+    }
+}
@@ -0,0 +1,56 @@
+package com.canscan.ocrsaas.service;
+
+import com.canscan.ocrsaas.model.User;
+import com.canscan.ocrsaas.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserCache userCache = new UserCache(userRepository, 100, 300);
+    private final UserCacheEvictionListener listener = new UserCacheEvictionListener(userCache);
+
+    @Test
+    void updatedUserIsReloaded() {
+        User before = User.builder().id(1L).username("before").build();
+        User after = User.builder().id(1L).username("after").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(before), Optional.of(after));
+
+        assertThat(userCache.get(1L).getUsername()).isEqualTo("before");
+        listener.evict(after);
+
+        assertThat(userCache.get(1L).getUsername()).isEqualTo("after");
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void evictionInsideTransactionWaitsForCommit() {
+        User user = User.builder().id(2L).username("user").build();
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user));
+        userCache.get(2L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listener.evict(user);
+            userCache.get(2L);
+            verify(userRepository, times(1)).findById(2L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        userCache.get(2L);
+        verify(userRepository, times(2)).findById(2L);
+    }
+}
@@ -0,0 +1,86 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.model.Document;
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import com.canscan.ocrsaas.repository.DocumentRepository;
+import com.canscan.ocrsaas.service.ArtifactCache;
+import com.canscan.ocrsaas.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExportServiceTest {
+
+    private final ArtifactCache artifactCache = mock(ArtifactCache.class);
+    private final DocumentExporter pdfExporter = mock(DocumentExporter.class);
+    private final ExportService exportService = new ExportService(mock(DocumentRepository.class),
+            mock(FileStorageService.class), artifactCache, List.of(pdfExporter));
+
+    @Test
+    void safeNameKeepsOrdinaryNames() {
+        assertThat(ExportService.safeName("Relat\u00f3rio 2024.pdf")).isEqualTo("Relat\u00f3rio 2024.pdf");
+    }
+
+    @Test
+    void safeNameReplacesSeparatorsAndControlCharacters() {
+        assertThat(ExportService.safeName("../../etc/passwd")).isEqualTo(".._.._etc_passwd");
+        assertThat(ExportService.safeName("a\\b")).isEqualTo("a_b");
+        assertThat(ExportService.safeName("line\nbreak\u0000")).isEqualTo("line_break_");
+    }
+
+    @Test
+    void safeNameNeverYieldsARelativeSegment() {
+        assertThat(ExportService.safeName("..")).isEqualTo("_..");
+        assertThat(ExportService.safeName(".")).isEqualTo("_.");
+        assertThat(ExportService.safeName("")).isEqualTo("_");
+        assertThat(ExportService.safeName("  ")).isEqualTo("_");
+    }
+
+    @Test
+    void pdfArchiveListsDocumentsWithoutARenderedPdfInsteadOfRunningOcr() throws IOException {
+        when(pdfExporter.getFormat()).thenReturn(ExportFormat.PDF);
+        when(pdfExporter.cacheKey(any())).thenReturn("pdf/key");
+        when(artifactCache.find("pdf/key")).thenReturn(null);
+        ExportArchive archive = new ExportArchive("a.zip", ExportFormat.PDF, false,
+                List.of(new ExportArchive.Entry("folder/", completed("scan.png"))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeArchive(archive, out);
+
+        List<String> names = new ArrayList<>();
+        String errors = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                names.add(entry.getName());
+                if (entry.getName().equals("_errors.txt")) {
+                    errors = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        assertThat(names).containsExactly("_errors.txt");
+        assertThat(errors).contains("folder/scan.png", "not generated yet");
+        verify(artifactCache, never()).get(any(), any());
+    }
+
+    private static DocumentFileView completed(String name) {
+        DocumentFileView document = mock(DocumentFileView.class);
+        when(document.getName()).thenReturn(name);
+        when(document.getStatus()).thenReturn(Document.Status.COMPLETED);
+        when(document.getTextHash()).thenReturn("hash");
+        return document;
+    }
+}
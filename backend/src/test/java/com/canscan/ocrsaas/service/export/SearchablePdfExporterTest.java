@@ -0,0 +1,101 @@
+package com.canscan.ocrsaas.service.export;
+
+import com.canscan.ocrsaas.exception.OcrOverloadedException;
+import com.canscan.ocrsaas.repository.DocumentFileView;
+import com.canscan.ocrsaas.service.OcrAdmissionController;
+import com.canscan.ocrsaas.service.OcrService;
+import com.canscan.ocrsaas.service.ocr.OcrTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchablePdfExporterTest {
+
+    private final OcrService ocrService = mock(OcrService.class);
+    private final OcrAdmissionController ocrAdmissionController = mock(OcrAdmissionController.class);
+    private final SearchablePdfExporter exporter = new SearchablePdfExporter(ocrService, ocrAdmissionController);
+    private final ExportSource source = new ExportSource(document(), () -> "");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(exporter, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(exporter, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(exporter, "retryAfterSeconds", 15L);
+        exporter.init();
+    }
+
+    @Test
+    void recognitionRunsUnderADeadline() throws IOException {
+        exporter.export(source, OutputStream.nullOutputStream());
+
+        ArgumentCaptor<OcrTask> task = ArgumentCaptor.forClass(OcrTask.class);
+        verify(ocrService).recognizeWords(anyString(), task.capture(), any());
+        assertThat(task.getValue().remainingMillis()).isBetween(1L, 60_000L);
+    }
+
+    @Test
+    void refusedAdmissionSkipsRecognitionAndFreesTheSlot() throws IOException {
+        doThrow(new OcrOverloadedException(30)).doNothing().when(ocrAdmissionController).admit(1);
+
+        assertThatThrownBy(() -> exporter.export(source, OutputStream.nullOutputStream()))
+                .isInstanceOf(OcrOverloadedException.class);
+        verify(ocrService, never()).recognizeWords(anyString(), any(), any());
+
+        exporter.export(source, OutputStream.nullOutputStream());
+        verify(ocrService).recognizeWords(anyString(), any(), any());
+    }
+
+    @Test
+    void rendersBeyondTheNodeLimitAreRefused() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            finish.await();
+            return null;
+        }).when(ocrService).recognizeWords(anyString(), any(), any());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(() -> {
+                exporter.export(source, OutputStream.nullOutputStream());
+                return null;
+            });
+            started.await();
+
+            assertThatThrownBy(() -> exporter.export(source, OutputStream.nullOutputStream()))
+                    .isInstanceOf(OcrOverloadedException.class)
+                    .satisfies(e -> assertThat(((OcrOverloadedException) e).getRetryAfterSeconds()).isEqualTo(15L));
+
+            finish.countDown();
+            first.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DocumentFileView document() {
+        DocumentFileView document = mock(DocumentFileView.class);
+        when(document.getOriginalFilePath()).thenReturn("originals/ab/cd/file.png");
+        return document;
+    }
+}
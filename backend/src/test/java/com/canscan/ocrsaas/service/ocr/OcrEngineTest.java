@@ -0,0 +1,93 @@
+package com.canscan.ocrsaas.service.ocr;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OcrEngineTest {
+
+    @Test
+    void intRgbImageIsPassedAsEightBitGray() {
+        BufferedImage image = new BufferedImage(101, 40, BufferedImage.TYPE_INT_RGB);
+
+        OcrEngine.Pixels pixels = OcrEngine.Pixels.of(image);
+
+        assertThat(pixels.bitsPerPixel()).isEqualTo(8);
+        assertThat(pixels.bytesPerLine()).isEqualTo(101);
+        assertThat(pixels.buffer().remaining()).isEqualTo(101 * 40);
+    }
+
+    @Test
+    void sixteenBitGrayImageIsPassedAsEightBitGray() {
+        BufferedImage image = new BufferedImage(33, 7, BufferedImage.TYPE_USHORT_GRAY);
+
+        OcrEngine.Pixels pixels = OcrEngine.Pixels.of(image);
+
+        assertThat(pixels.bitsPerPixel()).isEqualTo(8);
+        assertThat(pixels.buffer().remaining()).isEqualTo(33 * 7);
+    }
+
+    @Test
+    void byteBackedImagesKeepTheirDepth() {
+        OcrEngine.Pixels bgr = OcrEngine.Pixels.of(new BufferedImage(10, 3, BufferedImage.TYPE_3BYTE_BGR));
+        OcrEngine.Pixels binary = OcrEngine.Pixels.of(new BufferedImage(10, 3, BufferedImage.TYPE_BYTE_BINARY));
+
+        assertThat(bgr.bitsPerPixel()).isEqualTo(24);
+        assertThat(bgr.buffer().remaining()).isEqualTo(30 * 3);
+        assertThat(binary.bitsPerPixel()).isEqualTo(1);
+        assertThat(binary.bytesPerLine()).isEqualTo(2);
+        assertThat(binary.buffer().remaining()).isEqualTo(2 * 3);
+    }
+
+    @Test
+    void croppedImageIsCopiedToItsOwnBuffer() {
+        BufferedImage parent = new BufferedImage(100, 100, BufferedImage.TYPE_BYTE_GRAY);
+        parent.getRaster().setSample(20, 10, 0, 200);
+
+        OcrEngine.Pixels pixels = OcrEngine.Pixels.of(parent.getSubimage(20, 10, 30, 40));
+
+        assertThat(pixels.buffer().remaining()).isEqualTo(30 * 40);
+        assertThat(pixels.buffer().get(0) & 0xff).isEqualTo(200);
+    }
+
+    /**
+     * Needs the native Tesseract library and English traineddata in {@code TESSDATA_PREFIX} or ./tessdata.
+     */
+    @Test
+    void recognizesIntRgbImage() {
+        String dataPath = System.getenv().getOrDefault("TESSDATA_PREFIX", "./tessdata");
+        assumeTrue(Files.exists(Path.of(dataPath, "eng.traineddata")), "no English traineddata");
+
+        OcrEngine engine;
+        try {
+            engine = new OcrEngine(dataPath, "eng");
+        } catch (LinkageError e) {
+            assumeTrue(false, "native Tesseract library not available");
+            return;
+        }
+
+        BufferedImage image = new BufferedImage(600, 120, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 48));
+        g.drawString("HELLO WORLD", 20, 80);
+        g.dispose();
+
+        try {
+            assertThat(engine.recognize(image, 300)).contains("HELLO");
+            assertThat(engine.recognizeWords(image, 300)).extracting(OcrWord::text).contains("HELLO", "WORLD");
+        } finally {
+            engine.close();
+        }
+    }
+}
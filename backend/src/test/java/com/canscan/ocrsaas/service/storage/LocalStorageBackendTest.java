@@ -0,0 +1,114 @@
+package com.canscan.ocrsaas.service.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path root;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        backend = new LocalStorageBackend(root);
+    }
+
+    @Test
+    void committedUploadBecomesVisible() throws IOException {
+        try (StorageUpload upload = backend.openUpload("originals/ab/cd/file.txt")) {
+            upload.write(ByteBuffer.wrap("hello".getBytes(StandardCharsets.US_ASCII)));
+            assertThat(backend.exists("originals/ab/cd/file.txt")).isFalse();
+            upload.commit();
+            assertThat(upload.getBytesWritten()).isEqualTo(5);
+        }
+
+        assertThat(backend.exists("originals/ab/cd/file.txt")).isTrue();
+        assertThat(backend.size("originals/ab/cd/file.txt")).isEqualTo(5);
+        assertThat(read(backend.openRead("originals/ab/cd/file.txt"))).isEqualTo("hello");
+    }
+
+    @Test
+    void uncommittedUploadLeavesNothingBehind() throws IOException {
+        try (StorageUpload upload = backend.openUpload("originals/file.txt")) {
+            upload.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        }
+
+        assertThat(backend.exists("originals/file.txt")).isFalse();
+        try (var files = Files.list(root.resolve("originals"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void readsARange() throws IOException {
+        put("file.txt", "0123456789");
+
+        assertThat(read(backend.openRead("file.txt", 3, 4))).isEqualTo("3456");
+        assertThat(read(backend.openRead("file.txt", 8, 100))).isEqualTo("89");
+    }
+
+    @Test
+    void missingFileIsReportedAsNoSuchFile() {
+        assertThatThrownBy(() -> backend.openRead("missing.txt")).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> backend.size("missing.txt")).isInstanceOf(NoSuchFileException.class);
+        assertThatCode(() -> backend.delete("missing.txt")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void copyLeavesTheSourceInPlace() throws IOException {
+        put("originals/file.txt", "content");
+
+        backend.copy("originals/file.txt", "originals/ab/cd/file.txt");
+
+        assertThat(read(backend.openRead("originals/ab/cd/file.txt"))).isEqualTo("content");
+        assertThat(backend.exists("originals/file.txt")).isTrue();
+    }
+
+    @Test
+    void deleteRemovesTheFile() throws IOException {
+        put("file.txt", "x");
+
+        backend.delete("file.txt");
+
+        assertThat(backend.exists("file.txt")).isFalse();
+    }
+
+    @Test
+    void keysCannotEscapeTheRoot() {
+        assertThatThrownBy(() -> backend.openRead("../outside.txt")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> backend.localPath("originals/../../outside.txt")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void localPathIsUnderTheRoot() {
+        assertThat(backend.localPath("originals/file.txt")).contains(root.toAbsolutePath().normalize().resolve("originals/file.txt"));
+    }
+
+    private void put(String key, String content) throws IOException {
+        try (StorageUpload upload = backend.openUpload(key)) {
+            upload.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+            upload.commit();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.canscan.ocrsaas.service.storage;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs against a stubbed {@link S3Client}; the builder-style overloads of the client delegate to the
+ * request-typed methods stubbed here.
+ */
+class S3StorageBackendTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3 = mock(S3Client.class, CALLS_REAL_METHODS);
+    private final S3StorageBackend backend = new S3StorageBackend(s3, "bucket", "tenant", PART_SIZE);
+
+    @Test
+    void smallUploadIsASinglePut() throws IOException {
+        doReturn(PutObjectResponse.builder().build()).when(s3).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+
+        try (StorageUpload upload = backend.openUpload("originals/file.txt")) {
+            upload.write(ByteBuffer.wrap(new byte[100]));
+            upload.commit();
+        }
+
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3).putObject(request.capture(), any(RequestBody.class));
+        assertThat(request.getValue().bucket()).isEqualTo("bucket");
+        assertThat(request.getValue().key()).isEqualTo("tenant/originals/file.txt");
+        verify(s3, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void largeUploadIsSentInParts() throws IOException {
+        doReturn(CreateMultipartUploadResponse.builder().uploadId("up-1").build())
+                .when(s3).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+        doReturn(UploadPartResponse.builder().eTag("etag").build())
+                .when(s3).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        doReturn(CompleteMultipartUploadResponse.builder().build())
+                .when(s3).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+
+        try (StorageUpload upload = backend.openUpload("originals/big.bin")) {
+            upload.write(ByteBuffer.wrap(new byte[PART_SIZE * 2 + 10]));
+            upload.commit();
+            assertThat(upload.getBytesWritten()).isEqualTo(PART_SIZE * 2L + 10);
+        }
+
+        verify(s3, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3).completeMultipartUpload(complete.capture());
+        assertThat(complete.getValue().uploadId()).isEqualTo("up-1");
+        assertThat(complete.getValue().multipartUpload().parts()).extracting(part -> part.partNumber()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void uncommittedMultipartUploadIsAborted() throws IOException {
+        doReturn(CreateMultipartUploadResponse.builder().uploadId("up-2").build())
+                .when(s3).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+        doReturn(UploadPartResponse.builder().eTag("etag").build())
+                .when(s3).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        doReturn(null).when(s3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+
+        try (StorageUpload upload = backend.openUpload("originals/big.bin")) {
+            upload.write(ByteBuffer.wrap(new byte[PART_SIZE]));
+        }
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abort = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3).abortMultipartUpload(abort.capture());
+        assertThat(abort.getValue().uploadId()).isEqualTo("up-2");
+        verify(s3, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void rangedReadAsksForInclusiveByteRange() throws IOException {
+        doReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[4]))))
+                .when(s3).getObject(any(GetObjectRequest.class));
+
+        backend.openRead("file.txt", 10, 4).close();
+
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3).getObject(request.capture());
+        assertThat(request.getValue().range()).isEqualTo("bytes=10-13");
+        assertThat(request.getValue().key()).isEqualTo("tenant/file.txt");
+    }
+
+    @Test
+    void emptyRangeDoesNotCallS3() throws IOException {
+        assertThat(backend.openRead("file.txt", 10, 0).read()).isEqualTo(-1);
+
+        verify(s3, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void missingObjectIsReportedAsNoSuchFile() throws IOException {
+        doThrow(NoSuchKeyException.builder().build()).when(s3).getObject(any(GetObjectRequest.class));
+        doThrow(S3Exception.builder().statusCode(404).build()).when(s3).headObject(any(HeadObjectRequest.class));
+
+        assertThatThrownBy(() -> backend.openRead("missing.txt")).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> backend.size("missing.txt")).isInstanceOf(NoSuchFileException.class);
+        assertThat(backend.exists("missing.txt")).isFalse();
+    }
+
+    @Test
+    void otherErrorsAreIoErrors() {
+        doThrow(S3Exception.builder().statusCode(403).build()).when(s3).headObject(any(HeadObjectRequest.class));
+
+        assertThatThrownBy(() -> backend.exists("file.txt")).isInstanceOf(IOException.class)
+                .isNotInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void sizeComesFromHead() throws IOException {
+        doReturn(HeadObjectResponse.builder().contentLength(42L).build()).when(s3).headObject(any(HeadObjectRequest.class));
+
+        assertThat(backend.size("file.txt")).isEqualTo(42);
+        assertThat(backend.localPath("file.txt")).isEmpty();
+    }
+}